@@ -0,0 +1,86 @@
+package com.example.delahuerta.benchmark;
+
+import java.time.Duration;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.delahuerta.filters.JwtAuthenticationFilter;
+import com.example.delahuerta.model.User;
+import com.example.delahuerta.repository.UserRepository;
+import com.example.delahuerta.security.jwt.JwtUtils;
+import com.example.delahuerta.security.jwt.TokenRevocationList;
+import com.example.delahuerta.security.services.UserBatchLoader;
+import com.example.delahuerta.security.services.UserDetailsCache;
+import com.example.delahuerta.security.services.UserDetailsServiceImpl;
+
+// Camino completo del filtro JWT con el repositorio simulado (sin base de datos)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean claimsAuthentication;
+
+    @Param({"true", "false"})
+    public boolean userCacheEnabled;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        User admin = new User();
+        admin.setUsername("admin");
+        admin.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z1Z1Z1Z1Z1Z1Z1Z1Z1Z1Z1Z1");
+        admin.setRole("ADMIN");
+        UserRepository repository = mock(UserRepository.class);
+        when(repository.findByUsername("admin")).thenReturn(Optional.of(admin));
+
+        JwtUtils jwtUtils = new JwtUtils(true, 10_000, Duration.ofMinutes(15));
+        // sin start(): el cargador consulta el repositorio directamente, en el mismo hilo
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(
+                new UserBatchLoader(repository, true, 200, 100, 1),
+                new UserDetailsCache(userCacheEnabled, 10_000, 300));
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "claimsAuthentication", claimsAuthentication);
+        // lista de revocación vacía y sin cargar desde la base: mide solo el chequeo en memoria
+        ReflectionTestUtils.setField(filter, "revocationList",
+                new TokenRevocationList(null, jwtUtils, true, 100_000, 0.01, Duration.ofHours(24)));
+
+        authorization = "Bearer " + jwtUtils.generateToken(userDetailsService.loadUserByUsername("admin"));
+    }
+
+    @Benchmark
+    public Authentication doFilterInternal() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/profile");
+        request.addHeader("Authorization", authorization);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
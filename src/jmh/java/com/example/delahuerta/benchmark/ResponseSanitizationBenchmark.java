@@ -0,0 +1,59 @@
+package com.example.delahuerta.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.delahuerta.filters.ResponseSanitizationFilter;
+
+import jakarta.servlet.FilterChain;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseSanitizationBenchmark {
+
+    // cantidad de usuarios en el arreglo JSON de la respuesta
+    @Param({"1", "10000"})
+    public int users;
+
+    private ResponseSanitizationFilter filter;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < users; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i)
+                .append(",\"username\":\"user").append(i)
+                .append("\",\"role\":\"USER\",\"profile\":{\"groupId\":7,\"name\":\"Nombre ").append(i).append("\"}}");
+        }
+        byte[] payload = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+        filter = new ResponseSanitizationFilter("id");
+        chain = (request, response) -> {
+            response.setContentType("application/json");
+            response.getOutputStream().write(payload);
+        };
+    }
+
+    @Benchmark
+    public int sanitize() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users"), response, chain);
+        return response.getContentLength() + response.getContentAsByteArray().length;
+    }
+}
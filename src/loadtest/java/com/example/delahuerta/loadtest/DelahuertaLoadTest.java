@@ -0,0 +1,433 @@
+package com.example.delahuerta.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.delahuerta.metrics.LatencyHistogram;
+import com.example.delahuerta.security.jwt.JwtUtils;
+import com.example.delahuerta.security.services.RefreshTokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// Levanta la aplicación completa sobre H2 y la somete a tráfico mixto concurrente.
+// Reporta por endpoint: throughput, p50/p95/p99, tasa de errores y sentencias SQL por petición.
+@Tag("loadtest")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DelahuertaLoadTest {
+
+    private static final String PASSWORD = "loadtest";
+    private static final String SEED_SQL = "INSERT INTO `user` (username, password, role) VALUES (?, ?, 'USER')";
+
+    // propiedades que conviene dejar registradas junto a cada resultado
+    private static final List<String> REPORTED_PROPERTIES = List.of(
+            "delahuerta.security.claims-authentication",
+            "delahuerta.security.user-cache.enabled",
+            "delahuerta.jwt.cache.enabled",
+            "delahuerta.security.bcrypt-strength",
+            "delahuerta.login.executor.threads",
+            "delahuerta.login.executor.queue-capacity",
+            "delahuerta.request-log.overflow-policy",
+            "delahuerta.response-sanitization.enabled",
+            "delahuerta.loadtest.query-latency-ms",
+            "spring.threads.virtual.enabled",
+            "server.tomcat.threads.max",
+            "spring.datasource.hikari.maximum-pool-size");
+
+    enum Operation {
+        LOGIN("POST /api/login", 200),
+        REFRESH("POST /api/token/refresh", 200),
+        PROFILE("GET /api/user/profile", 200),
+        LIST_USERS("GET /api/users", 200),
+        CREATE_USER("POST /api/users", 201);
+
+        private final String route;
+        private final int expectedStatus;
+
+        Operation(String route, int expectedStatus) {
+            this.route = route;
+            this.expectedStatus = expectedStatus;
+        }
+    }
+
+    @TestConfiguration
+    static class LoadTestConfig {
+
+        @Bean
+        static QueryCounter queryCounter(Environment environment) {
+            return new QueryCounter(environment.getProperty("delahuerta.loadtest.query-latency-ms", Long.class, 0L));
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${delahuerta.loadtest.users}")
+    private int users;
+
+    @Value("${delahuerta.loadtest.threads}")
+    private int threads;
+
+    @Value("${delahuerta.loadtest.warmup-seconds}")
+    private int warmupSeconds;
+
+    @Value("${delahuerta.loadtest.duration-seconds}")
+    private int durationSeconds;
+
+    @Value("${delahuerta.loadtest.calibration-requests}")
+    private int calibrationRequests;
+
+    @Value("${delahuerta.loadtest.output:target/loadtest-result.json}")
+    private String output;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong createdUsers = new AtomicLong();
+
+    private int[] mix;
+    private String adminToken;
+    private List<String> userTokens;
+    // Cada refresh token se usa una sola vez: un hilo lo saca de la cola y devuelve el que recibe
+    private final Queue<String> refreshTokens = new ConcurrentLinkedQueue<>();
+
+    @Test
+    void mixedTraffic() throws Exception {
+        seedUsers();
+        mix = new int[] {
+                environment.getProperty("delahuerta.loadtest.mix.login", Integer.class, 0),
+                environment.getProperty("delahuerta.loadtest.mix.refresh", Integer.class, 0),
+                environment.getProperty("delahuerta.loadtest.mix.profile", Integer.class, 0),
+                environment.getProperty("delahuerta.loadtest.mix.list-users", Integer.class, 0),
+                environment.getProperty("delahuerta.loadtest.mix.create-user", Integer.class, 0)};
+
+        adminToken = login("admin", "admin123");
+        assertNotNull(adminToken, "no se pudo iniciar sesión como admin");
+
+        Map<Operation, Double> queriesPerRequest = calibrate();
+
+        run(warmupSeconds);
+        long statementsBefore = queryCounter.statements();
+        long batchesBefore = queryCounter.requestLogBatches();
+        long start = System.nanoTime();
+        Map<Operation, Stats> stats = run(durationSeconds);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> report = report(stats, elapsedSeconds, queriesPerRequest,
+                queryCounter.statements() - statementsBefore,
+                queryCounter.requestLogBatches() - batchesBefore);
+        print(report);
+        Path path = Path.of(output);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+
+        assertTrue(stats.values().stream().mapToLong(s -> s.requests.sum()).sum() > 0, "no se envió ninguna petición");
+    }
+
+    // Un solo hash para todos: BCrypt por usuario haría que el seeding dure más que la prueba
+    private void seedUsers() {
+        String hash = passwordEncoder.encode(PASSWORD);
+        List<Object[]> rows = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            rows.add(new Object[] {"loadtest-" + i, hash});
+        }
+        jdbcTemplate.batchUpdate(SEED_SQL, rows);
+
+        userTokens = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = new User("loadtest-" + i, "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+            userTokens.add(jwtUtils.generateToken(user));
+            refreshTokens.add(refreshTokenService.issue(user).getRefreshToken());
+        }
+    }
+
+    // Peticiones secuenciales: la diferencia del contador corresponde a una sola petición
+    private Map<Operation, Double> calibrate() throws Exception {
+        Map<Operation, Double> queries = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            long before = queryCounter.statements();
+            for (int i = 0; i < calibrationRequests; i++) {
+                send(operation);
+            }
+            queries.put(operation, (double) (queryCounter.statements() - before) / calibrationRequests);
+        }
+        return queries;
+    }
+
+    private Map<Operation, Stats> run(int seconds) throws Exception {
+        Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = pick();
+                        long begin = System.nanoTime();
+                        int status = send(operation);
+                        stats.get(operation).record(operation, status, (System.nanoTime() - begin) / 1000);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return stats;
+    }
+
+    private Operation pick() {
+        int total = 0;
+        for (int weight : mix) {
+            total += weight;
+        }
+        int value = ThreadLocalRandom.current().nextInt(Math.max(1, total));
+        for (Operation operation : Operation.values()) {
+            value -= mix[operation.ordinal()];
+            if (value < 0) {
+                return operation;
+            }
+        }
+        return Operation.PROFILE;
+    }
+
+    // Devuelve el código HTTP, o -1 si la petición no llegó a completarse
+    private int send(Operation operation) throws InterruptedException {
+        if (operation == Operation.REFRESH) {
+            return refresh();
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest request = switch (operation) {
+            case LOGIN -> json("/api/login", null,
+                    Map.of("username", "loadtest-" + random.nextInt(users), "password", PASSWORD));
+            case REFRESH -> throw new IllegalStateException("REFRESH se envía desde refresh()");
+            case PROFILE -> get("/api/user/profile", userTokens.get(random.nextInt(users)));
+            case LIST_USERS -> get("/api/users", adminToken);
+            case CREATE_USER -> json("/api/users", adminToken,
+                    Map.of("username", "created-" + createdUsers.incrementAndGet(), "password", PASSWORD, "role", "USER"));
+        };
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    private int refresh() throws InterruptedException {
+        String refreshToken = refreshTokens.poll();
+        if (refreshToken == null) {
+            return -1;
+        }
+        try {
+            HttpResponse<String> response = client.send(
+                    json("/api/token/refresh", null, Map.of("refreshToken", refreshToken)),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200) {
+                refreshTokens.add(objectMapper.readTree(response.body()).path("refreshToken").asText());
+            }
+            return response.statusCode();
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    private String login(String username, String password) throws Exception {
+        HttpResponse<String> response = client.send(
+                json("/api/login", null, Map.of("username", username, "password", password)),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        return objectMapper.readTree(response.body()).path("token").asText(null);
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest json(String path, String token, Map<String, String> body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        try {
+            return builder.POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body))).build();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private Map<String, Object> report(Map<Operation, Stats> stats, double elapsedSeconds,
+                                       Map<Operation, Double> queriesPerRequest,
+                                       long statements, long requestLogBatches) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("java", Runtime.version().toString());
+        settings.put("users", users);
+        settings.put("threads", threads);
+        settings.put("durationSeconds", durationSeconds);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            weights.put(operation.route, mix[operation.ordinal()]);
+        }
+        settings.put("mix", weights);
+        for (String property : REPORTED_PROPERTIES) {
+            settings.put(property, environment.getProperty(property));
+        }
+
+        long totalRequests = 0;
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            Stats stat = stats.get(operation);
+            long requests = stat.requests.sum();
+            long errors = stat.errors.sum();
+            totalRequests += requests;
+
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("route", operation.route);
+            endpoint.put("requests", requests);
+            endpoint.put("throughputPerSecond", requests / elapsedSeconds);
+            endpoint.put("errors", errors);
+            endpoint.put("errorRate", requests == 0 ? 0.0 : (double) errors / requests);
+            Map<String, Object> latency = stat.histogram.snapshot(Long.MAX_VALUE, System.currentTimeMillis());
+            endpoint.put("p50Ms", latency.get("p50Ms"));
+            endpoint.put("p95Ms", latency.get("p95Ms"));
+            endpoint.put("p99Ms", latency.get("p99Ms"));
+            endpoint.put("maxMs", latency.get("maxMs"));
+            endpoint.put("queriesPerRequest", queriesPerRequest.get(operation));
+            endpoint.put("statuses", new TreeMap<>(stat.statusCounts()));
+            endpoints.add(endpoint);
+        }
+
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("requests", totalRequests);
+        totals.put("throughputPerSecond", totalRequests / elapsedSeconds);
+        totals.put("queriesPerRequest", totalRequests == 0 ? 0.0 : (double) statements / totalRequests);
+        totals.put("requestLogBatches", requestLogBatches);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("endpoints", endpoints);
+        report.put("total", totals);
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> report) {
+        StringBuilder table = new StringBuilder(String.format("%n%-22s %9s %10s %8s %9s %9s %9s %9s %8s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms", "queries"));
+        for (Map<String, Object> endpoint : (List<Map<String, Object>>) report.get("endpoints")) {
+            table.append(String.format("%-22s %9d %10.1f %7.2f%% %9.2f %9.2f %9.2f %9.2f %8.2f%n",
+                    endpoint.get("route"), endpoint.get("requests"), endpoint.get("throughputPerSecond"),
+                    (double) endpoint.get("errorRate") * 100, endpoint.get("p50Ms"), endpoint.get("p95Ms"),
+                    endpoint.get("p99Ms"), endpoint.get("maxMs"), endpoint.get("queriesPerRequest")));
+        }
+        Map<String, Object> total = (Map<String, Object>) report.get("total");
+        table.append(String.format("%-22s %9d %10.1f %47s %8.2f%n", "TOTAL", total.get("requests"),
+                total.get("throughputPerSecond"), "", total.get("queriesPerRequest")));
+        System.out.println(table);
+    }
+
+    private static final class Stats {
+        // un único slot que abarca toda la corrida
+        private final LatencyHistogram histogram = new LatencyHistogram(1, Long.MAX_VALUE);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        private void record(Operation operation, int status, long micros) {
+            boolean error = status != operation.expectedStatus;
+            requests.increment();
+            if (error) {
+                errors.increment();
+            }
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+            histogram.record(micros, error, System.currentTimeMillis());
+        }
+
+        private Map<Integer, Long> statusCounts() {
+            Map<Integer, Long> counts = new LinkedHashMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.delahuerta.loadtest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Cuenta las sentencias que llegan a la base de datos (JPA, JdbcTemplate y el writer de logs).
+// Las escrituras por lotes de request_log se cuentan aparte: no dependen de la petición en curso.
+// Con latencyMillis > 0 cada sentencia espera ese tiempo, simulando la ida y vuelta a un MySQL remoto.
+public class QueryCounter implements BeanPostProcessor {
+
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder requestLogBatches = new LongAdder();
+    private final long latencyMillis;
+
+    public QueryCounter(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+            return new CountingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    public long statements() {
+        return statements.sum();
+    }
+
+    public long requestLogBatches() {
+        return requestLogBatches.sum();
+    }
+
+    private void count(Object sql) throws InterruptedException {
+        if (sql instanceof String text && text.toLowerCase().contains("request_log")) {
+            requestLogBatches.increment();
+        } else {
+            statements.increment();
+        }
+        if (latencyMillis > 0) {
+            Thread.sleep(latencyMillis);
+        }
+    }
+
+    private final class CountingDataSource extends DelegatingDataSource {
+
+        private CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return wrap(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return wrap(super.getConnection(username, password));
+        }
+
+        private Connection wrap(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.equals("prepareStatement") || name.equals("prepareCall")
+                                || name.equals("createStatement")) {
+                            count(args != null && args.length > 0 ? args[0] : null);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.example.delahuerta;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DelahuertaApplication {
 
 	public static void main(String[] args) {
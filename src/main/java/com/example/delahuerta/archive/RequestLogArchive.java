@@ -0,0 +1,130 @@
+package com.example.delahuerta.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.delahuerta.archive.RequestLogSegment.SegmentInfo;
+import com.example.delahuerta.model.RequestLog;
+
+// Directorio de segmentos de request_log que ya salieron de MySQL. Los archivos se nombran con el
+// timestamp mínimo (en microsegundos, con ceros a la izquierda) para que el orden alfabético sea el
+// cronológico; cada segmento se escribe una sola vez y no se modifica.
+@Component
+public class RequestLogArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestLogArchive.class);
+
+    private static final String PREFIX = "request-log-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+
+    public RequestLogArchive(@Value("${delahuerta.request-log.archive.dir:${java.io.tmpdir}/delahuerta/request-log-archive}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    SegmentInfo append(List<RequestLog> rows) throws IOException {
+        Files.createDirectories(directory);
+        RequestLog first = rows.stream()
+                .min(Comparator.comparing(RequestLog::getTimestamp))
+                .orElseThrow();
+        Path file = directory.resolve(String.format("%s%019d-%019d%s", PREFIX,
+                RequestLogSegment.micros(first.getTimestamp()), first.getId(), SUFFIX));
+        return RequestLogSegment.write(file, rows);
+    }
+
+    // Último segmento escrito o null si no hay ninguno. Se mira la fecha de modificación y no el nombre:
+    // filas viejas que llegan tarde (p. ej. desde el spill) generan segmentos con timestamps anteriores.
+    SegmentInfo lastWritten() throws IOException {
+        Path last = null;
+        FileTime lastModified = null;
+        for (Path file : files()) {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (lastModified == null || modified.compareTo(lastModified) >= 0) {
+                last = file;
+                lastModified = modified;
+            }
+        }
+        return last != null ? RequestLogSegment.readInfo(last) : null;
+    }
+
+    // Recorre los segmentos que se solapan con [from, to); dentro de cada uno las filas salen en orden de
+    // timestamp. Devuelve la cantidad de filas entregadas.
+    public long scan(LocalDateTime from, LocalDateTime to, String method, Consumer<RequestLog> consumer) {
+        long emitted = 0;
+        try {
+            for (Path file : files()) {
+                SegmentInfo info = RequestLogSegment.readInfo(file);
+                if (info.getMaxTimestamp().isBefore(from) || !info.getMinTimestamp().isBefore(to)) {
+                    continue;
+                }
+                emitted += RequestLogSegment.scan(file, from, to, method, consumer);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return emitted;
+    }
+
+    public Map<String, Object> stats() {
+        int segments = 0;
+        long rows = 0;
+        long bytes = 0;
+        LocalDateTime oldest = null;
+        LocalDateTime newest = null;
+        try {
+            for (Path file : files()) {
+                SegmentInfo info = RequestLogSegment.readInfo(file);
+                segments++;
+                rows += info.getRows();
+                bytes += info.getBytes();
+                if (oldest == null || info.getMinTimestamp().isBefore(oldest)) {
+                    oldest = info.getMinTimestamp();
+                }
+                if (newest == null || info.getMaxTimestamp().isAfter(newest)) {
+                    newest = info.getMaxTimestamp();
+                }
+            }
+        } catch (IOException ex) {
+            logger.warn("No se pudo leer el archivo de request_log en {}: {}", directory, ex.getMessage());
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("directory", directory.toString());
+        stats.put("segments", segments);
+        stats.put("rows", rows);
+        stats.put("bytes", bytes);
+        stats.put("oldest", oldest);
+        stats.put("newest", newest);
+        return stats;
+    }
+
+    private List<Path> files() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        return files;
+    }
+}
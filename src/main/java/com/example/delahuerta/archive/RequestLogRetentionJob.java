@@ -0,0 +1,163 @@
+package com.example.delahuerta.archive;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.delahuerta.archive.RequestLogSegment.SegmentInfo;
+import com.example.delahuerta.model.RequestLog;
+
+// Mueve a segmentos en disco las filas de request_log más viejas que maxAge, de a segmentRows filas.
+// Cada tanda se lee por idx_request_log_timestamp (sin ordenar en memoria), se escribe el segmento y
+// recién entonces se borran sus ids. Si el proceso cae entre ambos pasos, la corrida siguiente empieza
+// borrando los ids del último segmento escrito, así ninguna fila queda archivada dos veces.
+//
+// Con varias instancias debe habilitarse en una sola: el archivo vive en el disco local.
+@Component
+public class RequestLogRetentionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestLogRetentionJob.class);
+
+    private static final String SELECT_SQL =
+            "SELECT id, method, path, ip, timestamp, duration_ms, status, response_bytes, sample_weight"
+            + " FROM request_log"
+            + " WHERE timestamp < ? ORDER BY timestamp, id LIMIT ?";
+    private static final int DELETE_CHUNK = 1000;
+
+    private static final RowMapper<RequestLog> ROW_MAPPER = (rs, rowNum) -> {
+        RequestLog log = new RequestLog();
+        log.setId(rs.getLong("id"));
+        log.setMethod(rs.getString("method"));
+        log.setPath(rs.getString("path"));
+        log.setIp(rs.getString("ip"));
+        log.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+        log.setDurationMs(rs.getObject("duration_ms", Long.class));
+        log.setStatus(rs.getObject("status", Integer.class));
+        log.setResponseBytes(rs.getObject("response_bytes", Long.class));
+        log.setSampleWeight(rs.getInt("sample_weight"));
+        return log;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RequestLogArchive archive;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final int segmentRows;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+    private final LongAdder archivedRows = new LongAdder();
+    private final LongAdder segmentsWritten = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile LocalDateTime lastRun;
+    private volatile LocalDateTime lastCutoff;
+    private volatile long lastRunRows;
+    private volatile String lastError;
+
+    public RequestLogRetentionJob(JdbcTemplate jdbcTemplate, RequestLogArchive archive,
+                                  @Value("${delahuerta.request-log.retention.enabled:false}") boolean enabled,
+                                  @Value("${delahuerta.request-log.retention.max-age:30d}") Duration maxAge,
+                                  @Value("${delahuerta.request-log.retention.segment-rows:50000}") int segmentRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archive = archive;
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.segmentRows = Math.max(1, Math.min(segmentRows, 1_000_000));
+    }
+
+    @Scheduled(fixedDelayString = "${delahuerta.request-log.retention.interval-ms:3600000}",
+               initialDelayString = "${delahuerta.request-log.retention.initial-delay-ms:60000}")
+    public void run() {
+        if (enabled) {
+            archiveOlderThan(LocalDateTime.now().minus(maxAge));
+        }
+    }
+
+    // Devuelve la cantidad de filas movidas al archivo (0 si ya había otra corrida en curso)
+    public long archiveOlderThan(LocalDateTime cutoff) {
+        if (!runLock.tryLock()) {
+            return 0;
+        }
+        long moved = 0;
+        try {
+            SegmentInfo previous = archive.lastWritten();
+            if (previous != null) {
+                deleteIds(RequestLogSegment.readIds(previous.getFile()), previous.getMaxTimestamp());
+            }
+            List<RequestLog> rows;
+            do {
+                rows = jdbcTemplate.query(SELECT_SQL, ROW_MAPPER, Timestamp.valueOf(cutoff), segmentRows);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                SegmentInfo segment = archive.append(rows);
+                long[] ids = new long[rows.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = rows.get(i).getId();
+                }
+                deleteIds(ids, segment.getMaxTimestamp());
+                moved += rows.size();
+                archivedRows.add(rows.size());
+                segmentsWritten.increment();
+                logger.info("request_log: {} filas archivadas en {}", rows.size(), segment.getFile().getFileName());
+            } while (rows.size() == segmentRows);
+            lastError = null;
+        } catch (IOException | DataAccessException ex) {
+            failures.increment();
+            lastError = ex.getMessage();
+            logger.warn("Falló el archivado de request_log: {}", ex.getMessage());
+        } finally {
+            lastRun = LocalDateTime.now();
+            lastCutoff = cutoff;
+            lastRunRows = moved;
+            runLock.unlock();
+        }
+        return moved;
+    }
+
+    // El tope de timestamp protege filas nuevas que reusen ids (p. ej. una base restaurada o recreada)
+    private void deleteIds(long[] ids, LocalDateTime maxTimestamp) {
+        for (int start = 0; start < ids.length; start += DELETE_CHUNK) {
+            int end = Math.min(ids.length, start + DELETE_CHUNK);
+            StringBuilder sql = new StringBuilder("DELETE FROM request_log WHERE id IN (");
+            List<Object> args = new ArrayList<>(end - start + 1);
+            for (int i = start; i < end; i++) {
+                sql.append(i == start ? "?" : ", ?");
+                args.add(ids[i]);
+            }
+            args.add(Timestamp.valueOf(maxTimestamp));
+            jdbcTemplate.update(sql.append(") AND timestamp <= ?").toString(), args.toArray());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxAge", maxAge.toString());
+        stats.put("segmentRows", segmentRows);
+        stats.put("archivedRows", archivedRows.sum());
+        stats.put("segmentsWritten", segmentsWritten.sum());
+        stats.put("failures", failures.sum());
+        stats.put("lastRun", lastRun);
+        stats.put("lastCutoff", lastCutoff);
+        stats.put("lastRunRows", lastRunRows);
+        stats.put("lastError", lastError);
+        stats.put("archive", archive.stats());
+        return stats;
+    }
+}
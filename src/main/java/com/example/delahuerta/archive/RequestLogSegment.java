@@ -0,0 +1,348 @@
+package com.example.delahuerta.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.example.delahuerta.model.RequestLog;
+
+// Segmento inmutable de request_log en disco, pensado para leerse con mmap sin descomprimir.
+//
+// Columnar y de ancho fijo: cada fila ocupa 46 bytes sin importar el largo de path o ip, porque los
+// textos van a un diccionario del segmento y las columnas guardan su índice. Las filas se ordenan por
+// timestamp y cada INDEX_STRIDE filas se anota el timestamp en un índice chico, así una consulta por
+// rango solo toca las páginas que necesita.
+//
+//   cabecera (64 bytes) | diccionario | índice de tiempo | id long[] | ts long[] | bytes long[]
+//   | duration int[] | method int[] | path int[] | ip int[] | status short[] | weight int[]
+//
+// La versión 1 no tenía la columna weight (sample_weight): sus filas se leen con peso 1.
+//
+// Los timestamps son microsegundos desde 1970 tomando la hora local guardada como UTC (igual que la
+// columna DATETIME, que no tiene zona). Los nulos se guardan como -1.
+final class RequestLogSegment {
+
+    private static final int MAGIC = 0x524C5347; // "RLSG"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    static final int INDEX_STRIDE = 256;
+    static final int ROW_BYTES = 8 + 8 + 8 + 4 + 4 + 4 + 4 + 2 + 4;
+
+    private RequestLogSegment() {
+    }
+
+    // Escribe en un temporal y lo renombra: un segmento a medio escribir nunca queda visible
+    static SegmentInfo write(Path file, List<RequestLog> logs) throws IOException {
+        List<RequestLog> rows = new ArrayList<>(logs);
+        rows.sort(Comparator.comparing(RequestLog::getTimestamp).thenComparing(RequestLog::getId));
+        int count = rows.size();
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] methods = new int[count];
+        int[] paths = new int[count];
+        int[] ips = new int[count];
+        for (int i = 0; i < count; i++) {
+            RequestLog log = rows.get(i);
+            methods[i] = encode(dictionary, log.getMethod());
+            paths[i] = encode(dictionary, log.getPath());
+            ips[i] = encode(dictionary, log.getIp());
+        }
+        List<byte[]> words = new ArrayList<>(dictionary.size());
+        int dictionaryBytes = 4;
+        for (String word : dictionary.keySet()) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            words.add(bytes);
+            dictionaryBytes += 4 + bytes.length;
+        }
+        int indexEntries = (count + INDEX_STRIDE - 1) / INDEX_STRIDE;
+
+        int dictionaryOffset = HEADER_BYTES;
+        int indexOffset = align(dictionaryOffset + dictionaryBytes);
+        int columnsOffset = align(indexOffset + 4 + indexEntries * 8);
+        ByteBuffer buffer = ByteBuffer.allocate(columnsOffset + count * ROW_BYTES);
+
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        for (RequestLog log : rows) {
+            minId = Math.min(minId, log.getId());
+            maxId = Math.max(maxId, log.getId());
+        }
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(INDEX_STRIDE)
+                .putLong(minId).putLong(maxId)
+                .putLong(micros(rows.get(0).getTimestamp()))
+                .putLong(micros(rows.get(count - 1).getTimestamp()))
+                .putInt(dictionaryOffset).putInt(indexOffset).putInt(columnsOffset);
+
+        buffer.position(dictionaryOffset);
+        buffer.putInt(words.size());
+        for (byte[] word : words) {
+            buffer.putInt(word.length).put(word);
+        }
+
+        buffer.position(indexOffset);
+        buffer.putInt(indexEntries);
+        for (int entry = 0; entry < indexEntries; entry++) {
+            buffer.putLong(micros(rows.get(entry * INDEX_STRIDE).getTimestamp()));
+        }
+
+        Columns columns = new Columns(columnsOffset, count, VERSION);
+        for (int i = 0; i < count; i++) {
+            RequestLog log = rows.get(i);
+            buffer.putLong(columns.id + i * 8, log.getId());
+            buffer.putLong(columns.timestamp + i * 8, micros(log.getTimestamp()));
+            buffer.putLong(columns.responseBytes + i * 8, orMinusOne(log.getResponseBytes()));
+            buffer.putInt(columns.duration + i * 4, (int) Math.min(Integer.MAX_VALUE, orMinusOne(log.getDurationMs())));
+            buffer.putInt(columns.method + i * 4, methods[i]);
+            buffer.putInt(columns.path + i * 4, paths[i]);
+            buffer.putInt(columns.ip + i * 4, ips[i]);
+            buffer.putShort(columns.status + i * 2, (short) (log.getStatus() != null ? log.getStatus() : -1));
+            buffer.putInt(columns.weight + i * 4, log.getSampleWeight());
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        return new SegmentInfo(file, count, minId, maxId, rows.get(0).getTimestamp(),
+                rows.get(count - 1).getTimestamp(), Files.size(file));
+    }
+
+    static SegmentInfo readInfo(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER_BYTES));
+            checkHeader(header, file);
+            int count = header.getInt(8);
+            return new SegmentInfo(file, count, header.getLong(16), header.getLong(24),
+                    toDateTime(header.getLong(32)), toDateTime(header.getLong(40)), channel.size());
+        }
+    }
+
+    // Entrega en orden de timestamp las filas de [from, to) con el método pedido (null = todos)
+    static long scan(Path file, LocalDateTime from, LocalDateTime to, String method,
+                     Consumer<RequestLog> consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        checkHeader(buffer, file);
+        int count = buffer.getInt(8);
+        int stride = buffer.getInt(12);
+        int dictionaryOffset = buffer.getInt(48);
+        int indexOffset = buffer.getInt(52);
+        Columns columns = new Columns(buffer.getInt(56), count, buffer.getInt(4));
+
+        String[] dictionary = readDictionary(buffer, dictionaryOffset);
+        int methodId = -1;
+        if (method != null) {
+            for (int i = 0; i < dictionary.length && methodId < 0; i++) {
+                if (dictionary[i].equals(method)) {
+                    methodId = i;
+                }
+            }
+            if (methodId < 0) {
+                return 0;
+            }
+        }
+
+        long fromMicros = micros(from);
+        long toMicros = micros(to);
+        int row = firstRow(buffer, indexOffset, stride, fromMicros);
+        long emitted = 0;
+        for (; row < count; row++) {
+            long ts = buffer.getLong(columns.timestamp + row * 8);
+            if (ts >= toMicros) {
+                break;
+            }
+            if (ts < fromMicros || (methodId >= 0 && buffer.getInt(columns.method + row * 4) != methodId)) {
+                continue;
+            }
+            RequestLog log = new RequestLog();
+            log.setId(buffer.getLong(columns.id + row * 8));
+            log.setTimestamp(toDateTime(ts));
+            log.setMethod(word(dictionary, buffer.getInt(columns.method + row * 4)));
+            log.setPath(word(dictionary, buffer.getInt(columns.path + row * 4)));
+            log.setIp(word(dictionary, buffer.getInt(columns.ip + row * 4)));
+            int duration = buffer.getInt(columns.duration + row * 4);
+            log.setDurationMs(duration >= 0 ? (long) duration : null);
+            short status = buffer.getShort(columns.status + row * 2);
+            log.setStatus(status >= 0 ? (int) status : null);
+            long bytes = buffer.getLong(columns.responseBytes + row * 8);
+            log.setResponseBytes(bytes >= 0 ? bytes : null);
+            log.setSampleWeight(columns.weight >= 0 ? buffer.getInt(columns.weight + row * 4) : 1);
+            consumer.accept(log);
+            emitted++;
+        }
+        return emitted;
+    }
+
+    // Última entrada del índice con timestamp < from: desde ahí basta avanzar como mucho un bloque
+    private static int firstRow(ByteBuffer buffer, int indexOffset, int stride, long fromMicros) {
+        int entries = buffer.getInt(indexOffset);
+        int low = 0;
+        int high = entries - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(indexOffset + 4 + mid * 8) < fromMicros) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found * stride;
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer, int offset) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        String[] words = new String[view.getInt()];
+        for (int i = 0; i < words.length; i++) {
+            byte[] bytes = new byte[view.getInt()];
+            view.get(bytes);
+            words[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return words;
+    }
+
+    private static void checkHeader(ByteBuffer header, Path file) throws IOException {
+        if (header.limit() < HEADER_BYTES || header.getInt(0) != MAGIC
+                || header.getInt(4) < 1 || header.getInt(4) > VERSION) {
+            throw new IOException("Segmento inválido: " + file);
+        }
+    }
+
+    private static int encode(Map<String, Integer> dictionary, String value) {
+        return value == null ? -1 : dictionary.computeIfAbsent(value, key -> dictionary.size());
+    }
+
+    private static String word(String[] dictionary, int id) {
+        return id >= 0 ? dictionary[id] : null;
+    }
+
+    private static long orMinusOne(Number value) {
+        return value != null ? value.longValue() : -1;
+    }
+
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    static long micros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime toDateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static final class Columns {
+        private final int id;
+        private final int timestamp;
+        private final int responseBytes;
+        private final int duration;
+        private final int method;
+        private final int path;
+        private final int ip;
+        private final int status;
+        private final int weight;
+
+        private Columns(int offset, int count, int version) {
+            id = offset;
+            timestamp = id + count * 8;
+            responseBytes = timestamp + count * 8;
+            duration = responseBytes + count * 8;
+            method = duration + count * 4;
+            path = method + count * 4;
+            ip = path + count * 4;
+            status = ip + count * 4;
+            weight = version >= 2 ? status + count * 2 : -1;
+        }
+    }
+
+    // Ids de todas las filas del segmento, en el orden en que están guardadas
+    static long[] readIds(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        checkHeader(buffer, file);
+        int count = buffer.getInt(8);
+        Columns columns = new Columns(buffer.getInt(56), count, buffer.getInt(4));
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = buffer.getLong(columns.id + i * 8);
+        }
+        return ids;
+    }
+
+    static final class SegmentInfo {
+        private final Path file;
+        private final int rows;
+        private final long minId;
+        private final long maxId;
+        private final LocalDateTime minTimestamp;
+        private final LocalDateTime maxTimestamp;
+        private final long bytes;
+
+        private SegmentInfo(Path file, int rows, long minId, long maxId,
+                            LocalDateTime minTimestamp, LocalDateTime maxTimestamp, long bytes) {
+            this.file = file;
+            this.rows = rows;
+            this.minId = minId;
+            this.maxId = maxId;
+            this.minTimestamp = minTimestamp;
+            this.maxTimestamp = maxTimestamp;
+            this.bytes = bytes;
+        }
+
+        Path getFile() {
+            return file;
+        }
+
+        int getRows() {
+            return rows;
+        }
+
+        long getMinId() {
+            return minId;
+        }
+
+        long getMaxId() {
+            return maxId;
+        }
+
+        LocalDateTime getMinTimestamp() {
+            return minTimestamp;
+        }
+
+        LocalDateTime getMaxTimestamp() {
+            return maxTimestamp;
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.delahuerta.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Límite de concurrencia que se ajusta solo a partir de la latencia observada (estilo "gradient" de
+// Vegas/Netflix concurrency-limits). Por cada ventana se compara la latencia media reciente (corta) con
+// una línea base que se mueve despacio (larga):
+//
+//   gradiente = clamp(tolerancia * larga / corta, 0.5, 1)
+//   nuevo     = límite * gradiente + sqrt(límite)
+//
+// Si la latencia no sube el gradiente es 1 y el límite crece de a sqrt(límite); si sube (la base de datos
+// se satura y las peticiones hacen cola) el límite baja, como mucho a la mitad más sqrt(límite). El paso
+// se suaviza con "smoothing" y el resultado queda entre min y max.
+//
+// Las muestras se acumulan sin bloquear; al cerrar la ventana un solo hilo recalcula.
+public class GradientLimit {
+
+    // la base larga sigue a la corta en unas 20 ventanas
+    private static final double LONG_RTT_ALPHA = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final int minWindowSamples;
+
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInflight = new AtomicInteger();
+
+    private volatile double limit;
+    private volatile double shortRtt;
+    private volatile double longRtt;
+    private volatile long windowStart;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                         long windowNanos, int minWindowSamples, long now) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = Math.max(1.0, tolerance);
+        this.smoothing = Math.min(1.0, Math.max(0.01, smoothing));
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = Math.max(1, minWindowSamples);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.windowStart = now;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    // rttNanos: duración de una petición admitida; inflight: peticiones en curso cuando empezó
+    public void onSample(long rttNanos, int inflight, long now) {
+        windowRttSum.add(rttNanos);
+        windowSamples.increment();
+        windowMaxInflight.accumulateAndGet(inflight, Math::max);
+        if (now - windowStart >= windowNanos && windowSamples.sum() >= minWindowSamples && updateLock.tryLock()) {
+            try {
+                if (now - windowStart >= windowNanos) {
+                    update(now);
+                }
+            } finally {
+                updateLock.unlock();
+            }
+        }
+    }
+
+    private void update(long now) {
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttSum.sumThenReset();
+        int maxInflight = windowMaxInflight.getAndSet(0);
+        windowStart = now;
+        if (samples == 0) {
+            return;
+        }
+
+        double rtt = (double) rttSum / samples;
+        shortRtt = rtt;
+        if (longRtt == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt += (rtt - longRtt) * LONG_RTT_ALPHA;
+            // la latencia volvió a bajar mucho: la base se acerca rápido para no frenar la recuperación
+            if (longRtt / rtt > 2) {
+                longRtt *= 0.95;
+            }
+        }
+
+        double current = limit;
+        // sin demanda suficiente la latencia no dice nada sobre el límite: no se lo hace crecer a ciegas
+        if (maxInflight < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / rtt));
+        double next = current * gradient + Math.sqrt(current);
+        next = current * (1 - smoothing) + next * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public double getShortRttMillis() {
+        return shortRtt / 1_000_000;
+    }
+
+    public double getLongRttMillis() {
+        return longRtt / 1_000_000;
+    }
+}
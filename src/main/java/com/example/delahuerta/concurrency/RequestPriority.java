@@ -0,0 +1,9 @@
+package com.example.delahuerta.concurrency;
+
+// Clase de prioridad de una ruta: cada una puede ocupar solo una parte del límite de concurrencia, así
+// que al saturarse se descarta primero LOW, después NORMAL y por último HIGH
+public enum RequestPriority {
+    HIGH,
+    NORMAL,
+    LOW
+}
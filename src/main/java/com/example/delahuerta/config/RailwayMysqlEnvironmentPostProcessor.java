@@ -2,7 +2,9 @@ package com.example.delahuerta.config;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
@@ -27,29 +29,47 @@ public class RailwayMysqlEnvironmentPostProcessor implements EnvironmentPostProc
         defaults.put("allowPublicKeyRetrieval", "true");
         defaults.put("useUnicode", "true");
         defaults.put("characterEncoding", "utf8");
+        defaults.put("rewriteBatchedStatements", "true");
+        defaults.put("useCursorFetch", "true");
         DEFAULT_OPTIONS = Map.copyOf(defaults);
     }
 
     @Override
     public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        Map<String, Object> overrides = new LinkedHashMap<>();
+
         String mysqlUrl = environment.getProperty("MYSQL_URL");
-        if (!StringUtils.hasText(mysqlUrl)) {
-            return;
-        }
+        ParsedMysqlUrl parsed = StringUtils.hasText(mysqlUrl) ? parse(mysqlUrl) : null;
+        if (parsed != null) {
+            overrides.put("spring.datasource.url", parsed.jdbcUrl);
 
-        ParsedMysqlUrl parsed = parse(mysqlUrl);
-        if (parsed == null) {
-            return;
+            if (parsed.username != null) {
+                overrides.put("spring.datasource.username", parsed.username);
+            }
+            if (parsed.password != null) {
+                overrides.put("spring.datasource.password", parsed.password);
+            }
         }
 
-        Map<String, Object> overrides = new LinkedHashMap<>();
-        overrides.put("spring.datasource.url", parsed.jdbcUrl);
-
-        if (parsed.username != null) {
-            overrides.put("spring.datasource.username", parsed.username);
-        }
-        if (parsed.password != null) {
-            overrides.put("spring.datasource.password", parsed.password);
+        // Una o varias réplicas de lectura separadas por coma, con el mismo formato que MYSQL_URL
+        String replicaUrls = environment.getProperty("MYSQL_REPLICA_URL");
+        if (StringUtils.hasText(replicaUrls)) {
+            List<String> jdbcUrls = new ArrayList<>();
+            for (String replicaUrl : StringUtils.commaDelimitedListToStringArray(replicaUrls)) {
+                ParsedMysqlUrl replica = parse(replicaUrl.trim());
+                if (replica == null) {
+                    continue;
+                }
+                jdbcUrls.add(replica.jdbcUrl);
+                if (replica.username != null && !overrides.containsKey("delahuerta.datasource.replica.username")) {
+                    overrides.put("delahuerta.datasource.replica.username", replica.username);
+                    overrides.put("delahuerta.datasource.replica.password",
+                            replica.password != null ? replica.password : "");
+                }
+            }
+            if (!jdbcUrls.isEmpty()) {
+                overrides.put("delahuerta.datasource.replica.urls", String.join(",", jdbcUrls));
+            }
         }
 
         if (overrides.isEmpty()) {
@@ -0,0 +1,63 @@
+package com.example.delahuerta.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// Solo se activa si hay réplicas configuradas; si no, Spring Boot arma el DataSource de siempre
+@Configuration
+@ConditionalOnProperty(name = "delahuerta.datasource.replica.urls")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+            @Value("${delahuerta.datasource.replica.urls}") String urls,
+            @Value("${delahuerta.datasource.replica.username:}") String username,
+            @Value("${delahuerta.datasource.replica.password:}") String password,
+            @Value("${delahuerta.datasource.replica.connection-timeout-ms:1000}") long connectionTimeoutMs,
+            @Value("${delahuerta.datasource.replica.retry-interval-ms:10000}") long retryIntervalMs) {
+        HikariDataSource primary = pool(properties, environment);
+        primary.setPoolName("primary");
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : StringUtils.commaDelimitedListToStringArray(urls)) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            HikariDataSource replica = pool(properties, environment);
+            String name = "replica-" + (replicas.size() + 1);
+            replica.setPoolName(name);
+            replica.setJdbcUrl(url.trim());
+            if (StringUtils.hasText(username)) {
+                replica.setUsername(username);
+                replica.setPassword(password);
+            }
+            replica.setReadOnly(true);
+            // una réplica caída no debe impedir el arranque ni demorar cada lectura
+            replica.setInitializationFailTimeout(-1);
+            replica.setConnectionTimeout(connectionTimeoutMs);
+            replicas.put(name, replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, retryIntervalMs);
+    }
+
+    // Mismo pool que armaría Spring Boot a partir de spring.datasource.* y spring.datasource.hikari.*
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        return dataSource;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.delahuerta.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+// Las transacciones readOnly van a una réplica; el resto (y todo lo que no es transaccional) al primario.
+// La conexión física se pide recién en la primera sentencia, cuando ya se sabe si la transacción es
+// de solo lectura. Una réplica que no entrega conexiones se saltea durante retryMillis y, si no queda
+// ninguna disponible, la lectura va al primario.
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final ReplicaPool replicas;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long retryMillis) {
+        super(primary);
+        this.primary = primary;
+        this.replicas = new ReplicaPool(primary, replicas, retryMillis);
+        setReadOnlyDataSource(this.replicas);
+    }
+
+    public Map<String, Object> stats() {
+        return replicas.stats();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas.replicas) {
+            close(replica.dataSource);
+        }
+        close(primary);
+    }
+
+    private static void close(DataSource dataSource) throws Exception {
+        if (dataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static final class ReplicaPool extends AbstractDataSource {
+
+        private final DataSource primary;
+        private final List<Replica> replicas = new ArrayList<>();
+        private final long retryMillis;
+        private final AtomicInteger next = new AtomicInteger();
+        private final LongAdder fallbacks = new LongAdder();
+
+        private ReplicaPool(DataSource primary, Map<String, DataSource> replicas, long retryMillis) {
+            this.primary = primary;
+            this.retryMillis = retryMillis;
+            replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            int count = replicas.size();
+            int start = Math.floorMod(next.getAndIncrement(), Math.max(1, count));
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < count; i++) {
+                Replica replica = replicas.get((start + i) % count);
+                if (replica.downUntil > now) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    if (replica.downUntil != 0) {
+                        log.info("Réplica {} disponible nuevamente", replica.name);
+                        replica.downUntil = 0;
+                    }
+                    replica.connections.increment();
+                    return connection;
+                } catch (SQLException ex) {
+                    replica.failures.increment();
+                    replica.downUntil = now + retryMillis;
+                    log.warn("Réplica {} no disponible, se reintenta en {} ms: {}", replica.name, retryMillis, ex.getMessage());
+                }
+            }
+            fallbacks.increment();
+            // el proxy solo marca readOnly las conexiones del primario: la de respaldo se marca aquí
+            Connection connection = primary.getConnection();
+            connection.setReadOnly(true);
+            return connection;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+
+        private Map<String, Object> stats() {
+            long now = System.currentTimeMillis();
+            List<Map<String, Object>> items = new ArrayList<>(replicas.size());
+            for (Replica replica : replicas) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("name", replica.name);
+                item.put("healthy", replica.downUntil <= now);
+                item.put("connections", replica.connections.sum());
+                item.put("failures", replica.failures.sum());
+                items.add(item);
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("replicas", items);
+            stats.put("primaryFallbacks", fallbacks.sum());
+            stats.put("retryMillis", retryMillis);
+            return stats;
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final LongAdder connections = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private volatile long downUntil;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -1,15 +1,46 @@
 package com.example.delahuerta.controller;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import com.example.delahuerta.security.jwt.TokenRevocationList;
+import com.example.delahuerta.security.services.RefreshTokenService;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin")
 public class AdminController {
+
+  private final TokenRevocationList revocationList;
+  private final RefreshTokenService refreshTokenService;
+
+  public AdminController(TokenRevocationList revocationList, RefreshTokenService refreshTokenService) {
+    this.revocationList = revocationList;
+    this.refreshTokenService = refreshTokenService;
+  }
+
   @GetMapping("/secret")
   public Map<String,String> secret() {
     return Map.of("msg","Solo ADMIN ve esto");
   }
-}
\ No newline at end of file
+
+  // Invalida todas las sesiones abiertas del usuario (p. ej. tras cambiar su contraseña o su rol):
+  // tokens de acceso y refresh tokens
+  @PostMapping("/users/{username}/revoke-tokens")
+  public ResponseEntity<Void> revokeUserTokens(@PathVariable String username) {
+    revocationList.revokeAll(username);
+    refreshTokenService.revokeAll(username);
+    return ResponseEntity.noContent().build();
+  }
+
+  // Revoca un token puntual por su "jti"; se guarda hasta que venza cualquier token posible con ese id
+  @PostMapping("/tokens/{jti}/revoke")
+  public ResponseEntity<Void> revokeToken(@PathVariable String jti) {
+    revocationList.revoke(jti, null);
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -1,9 +1,14 @@
 package com.example.delahuerta.controller;
 
-import com.example.delahuerta.repository.UserRepository;
+import com.example.delahuerta.profiling.LoginEvent;
 import com.example.delahuerta.security.jwt.JwtUtils;
+import com.example.delahuerta.security.jwt.TokenRevocationList;
+import com.example.delahuerta.security.services.LoginExecutor;
+import com.example.delahuerta.security.services.RefreshTokenService;
+import com.example.delahuerta.security.services.RefreshTokenService.TokenPair;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -11,8 +16,12 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import io.jsonwebtoken.Claims;
+
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
@@ -25,35 +34,108 @@ public class AuthController {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserRepository userRepository;
+    private LoginExecutor loginExecutor;
+
+    @Autowired
+    private TokenRevocationList revocationList;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    // BCrypt corre en el pool de login; el hilo de Tomcat queda libre mientras tanto
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> loginRequest) {
         String username = loginRequest.get("username");
         String password = loginRequest.get("password");
 
+        long submitted = System.nanoTime();
+        try {
+            return loginExecutor.submit(() -> authenticate(username, password, submitted));
+        } catch (RejectedExecutionException ex) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Servidor ocupado, intente de nuevo");
+            return CompletableFuture.completedFuture(ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginExecutor.getRetryAfterSeconds()))
+                    .body(error));
+        }
+    }
+
+    // Nuevo par de tokens a partir de un refresh token: sin contraseña ni BCrypt, y sin pasar por el
+    // pool de login. El refresh token presentado queda usado.
+    @PostMapping("/token/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> refreshRequest) {
+        String refreshToken = refreshRequest.get("refreshToken");
+        TokenPair pair = refreshToken != null ? refreshTokenService.rotate(refreshToken) : null;
+        if (pair == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Refresh token inválido");
+            return ResponseEntity.status(401).body(error);
+        }
+        return ResponseEntity.ok(tokenResponse(pair));
+    }
+
+    // Revoca el token con el que se hace la petición (ya verificado por JwtAuthenticationFilter) y, si
+    // viene en el cuerpo, la familia del refresh token. Los tokens emitidos antes de que existiera el
+    // "jti" no se pueden revocar sueltos: se corta todo lo emitido hasta ahora para ese usuario.
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                       @RequestBody(required = false) Map<String, String> logoutRequest) {
+        Claims claims = jwtUtils.parseClaims(authorization.substring("Bearer ".length()));
+        if (claims.getId() != null) {
+            revocationList.revoke(claims.getId(), claims.getExpiration());
+        } else {
+            revocationList.revokeAll(claims.getSubject());
+        }
+        if (logoutRequest != null && logoutRequest.get("refreshToken") != null) {
+            refreshTokenService.revoke(logoutRequest.get("refreshToken"));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private ResponseEntity<?> authenticate(String username, String password, long submitted) {
+        long queueWait = System.nanoTime() - submitted;
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        boolean authenticated = false;
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(username, password)
             );
 
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            String jwt = jwtUtils.generateToken(userDetails.getUsername());
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", jwt);
-            response.put("username", userDetails.getUsername());
-
-            userRepository.findByUsername(username)
-                    .ifPresent(user -> response.put("role", user.getRole()));
-
-            return ResponseEntity.ok(response);
+            ResponseEntity<?> response = ResponseEntity.ok(tokenResponse(refreshTokenService.issue(userDetails)));
+            authenticated = true;
+            return response;
 
         } catch (org.springframework.security.core.AuthenticationException ex) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Credenciales inválidas");
             return ResponseEntity.status(401).body(error);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.username = username;
+                event.authenticated = authenticated;
+                event.queueWait = queueWait;
+                event.commit();
+            }
+        }
+    }
+
+    private Map<String, Object> tokenResponse(TokenPair pair) {
+        UserDetails userDetails = pair.getUser();
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", pair.getAccessToken());
+        response.put("refreshToken", pair.getRefreshToken());
+        response.put("expiresIn", jwtUtils.getExpirationMs() / 1000);
+        response.put("username", userDetails.getUsername());
+
+        // el rol sale del principal autenticado, sin otra consulta
+        String role = JwtUtils.extractRole(userDetails);
+        if (role != null) {
+            response.put("role", role);
         }
+        return response;
     }
 
 }
@@ -0,0 +1,150 @@
+package com.example.delahuerta.controller;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.delahuerta.archive.RequestLogRetentionJob;
+import com.example.delahuerta.config.ReplicaRoutingDataSource;
+import com.example.delahuerta.filters.ConcurrencyLimitFilter;
+import com.example.delahuerta.filters.LoginRateLimitFilter;
+import com.example.delahuerta.metrics.RouteLatencyRegistry;
+import com.example.delahuerta.security.jwt.JwtUtils;
+import com.example.delahuerta.security.jwt.TokenRevocationList;
+import com.example.delahuerta.security.services.LoginExecutor;
+import com.example.delahuerta.security.services.RefreshTokenService;
+import com.example.delahuerta.security.services.UserBatchLoader;
+import com.example.delahuerta.security.services.UserDetailsCache;
+import com.example.delahuerta.service.RequestLogSampler;
+import com.example.delahuerta.service.RequestLogWriter;
+import com.example.delahuerta.service.UserChangePoller;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+public class MetricsController {
+
+  private final RequestLogWriter requestLogWriter;
+  private final JwtUtils jwtUtils;
+  private final UserDetailsCache userDetailsCache;
+  private final LoginExecutor loginExecutor;
+  private final LoginRateLimitFilter loginRateLimitFilter;
+  private final RouteLatencyRegistry routeLatencyRegistry;
+  private final ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource;
+  private final RequestLogRetentionJob requestLogRetentionJob;
+  private final TokenRevocationList tokenRevocationList;
+  private final RefreshTokenService refreshTokenService;
+  private final UserChangePoller userChangePoller;
+  private final ConcurrencyLimitFilter concurrencyLimitFilter;
+  private final UserBatchLoader userBatchLoader;
+  private final RequestLogSampler requestLogSampler;
+
+  public MetricsController(RequestLogWriter requestLogWriter, JwtUtils jwtUtils,
+                           UserDetailsCache userDetailsCache, LoginExecutor loginExecutor,
+                           LoginRateLimitFilter loginRateLimitFilter,
+                           RouteLatencyRegistry routeLatencyRegistry,
+                           ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource,
+                           RequestLogRetentionJob requestLogRetentionJob,
+                           TokenRevocationList tokenRevocationList,
+                           RefreshTokenService refreshTokenService,
+                           UserChangePoller userChangePoller,
+                           ConcurrencyLimitFilter concurrencyLimitFilter,
+                           UserBatchLoader userBatchLoader,
+                           RequestLogSampler requestLogSampler) {
+    this.requestLogWriter = requestLogWriter;
+    this.jwtUtils = jwtUtils;
+    this.userDetailsCache = userDetailsCache;
+    this.loginExecutor = loginExecutor;
+    this.loginRateLimitFilter = loginRateLimitFilter;
+    this.routeLatencyRegistry = routeLatencyRegistry;
+    this.replicaRoutingDataSource = replicaRoutingDataSource;
+    this.requestLogRetentionJob = requestLogRetentionJob;
+    this.tokenRevocationList = tokenRevocationList;
+    this.refreshTokenService = refreshTokenService;
+    this.userChangePoller = userChangePoller;
+    this.concurrencyLimitFilter = concurrencyLimitFilter;
+    this.userBatchLoader = userBatchLoader;
+    this.requestLogSampler = requestLogSampler;
+  }
+
+  @GetMapping("/request-log")
+  public Map<String, Object> requestLog() {
+    return requestLogWriter.stats();
+  }
+
+  // Filas guardadas y descartadas por cada regla de muestreo
+  @GetMapping("/request-log-sampling")
+  public Map<String, Object> requestLogSampling() {
+    return requestLogSampler.stats();
+  }
+
+  // Última corrida del archivado y tamaño de los segmentos en disco
+  @GetMapping("/request-log-archive")
+  public Map<String, Object> requestLogArchive() {
+    return requestLogRetentionJob.stats();
+  }
+
+  @GetMapping("/jwt")
+  public Map<String, Object> jwt() {
+    return jwtUtils.stats();
+  }
+
+  @GetMapping("/token-revocation")
+  public Map<String, Object> tokenRevocation() {
+    return tokenRevocationList.stats();
+  }
+
+  @GetMapping("/refresh-tokens")
+  public Map<String, Object> refreshTokens() {
+    return refreshTokenService.stats();
+  }
+
+  @GetMapping("/user-cache")
+  public Map<String, Object> userCache() {
+    return userDetailsCache.stats();
+  }
+
+  // Búsquedas de usuarios fuera de la caché: cuántas se unieron a otra en curso y tamaño de los lotes
+  @GetMapping("/user-loader")
+  public Map<String, Object> userLoader() {
+    return userBatchLoader.stats();
+  }
+
+  // Seguimiento del outbox user_change (cambios hechos en otras instancias)
+  @GetMapping("/user-changes")
+  public Map<String, Object> userChanges() {
+    return userChangePoller.stats();
+  }
+
+  @GetMapping("/login-executor")
+  public Map<String, Object> loginExecutor() {
+    return loginExecutor.stats();
+  }
+
+  @GetMapping("/login-rate-limit")
+  public Map<String, Object> loginRateLimit() {
+    return loginRateLimitFilter.stats();
+  }
+
+  // Límite de concurrencia actual y peticiones admitidas/rechazadas por clase de prioridad
+  @GetMapping("/concurrency-limit")
+  public Map<String, Object> concurrencyLimit() {
+    return concurrencyLimitFilter.stats();
+  }
+
+  // Estado de las réplicas de lectura (vacío si no hay réplicas configuradas)
+  @GetMapping("/datasource")
+  public Map<String, Object> datasource() {
+    ReplicaRoutingDataSource dataSource = replicaRoutingDataSource.getIfAvailable();
+    return dataSource != null ? dataSource.stats() : Map.of("replicas", List.of());
+  }
+
+  // p50/p95/p99/max por ruta en la ventana pedida (en segundos), sin consultar la base de datos
+  @GetMapping("/latency")
+  public List<Map<String, Object>> latency(@RequestParam(defaultValue = "60") long window) {
+    return routeLatencyRegistry.snapshot(window);
+  }
+}
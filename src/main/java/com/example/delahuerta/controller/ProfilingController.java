@@ -0,0 +1,77 @@
+package com.example.delahuerta.controller;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.delahuerta.profiling.JfrRecordingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+
+@RestController
+@RequestMapping("/api/admin/profiling")
+public class ProfilingController {
+
+  private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  private final JfrRecordingService recordingService;
+  private final ObjectMapper objectMapper;
+
+  public ProfilingController(JfrRecordingService recordingService, ObjectMapper objectMapper) {
+    this.recordingService = recordingService;
+    this.objectMapper = objectMapper;
+  }
+
+  // Perfiles de JFR disponibles en esta JVM (normalmente "default" y "profile")
+  @GetMapping("/settings")
+  public List<Map<String, Object>> settings() {
+    return recordingService.settings();
+  }
+
+  @GetMapping("/recording")
+  public Map<String, Object> status() {
+    return recordingService.stats();
+  }
+
+  // p. ej. POST /api/admin/profiling/recording?seconds=30&settings=profile: graba durante "seconds" y
+  // responde el .jfr (abrir con JDK Mission Control o "jfr print --events delahuerta.*"). La espera
+  // corre en el pool de MVC asíncrono, no en un hilo de Tomcat.
+  @PostMapping("/recording")
+  public ResponseEntity<StreamingResponseBody> record(@RequestParam(defaultValue = "30") long seconds,
+                                                      @RequestParam(defaultValue = "profile") String settings) {
+    Recording recording;
+    try {
+      recording = recordingService.start(settings, seconds);
+    } catch (IllegalArgumentException ex) {
+      return error(HttpStatus.BAD_REQUEST, ex.getMessage());
+    } catch (IllegalStateException ex) {
+      return error(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    String filename = "delahuerta-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr";
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+        .body(out -> recordingService.finish(recording, out));
+  }
+
+  // El cuerpo de la respuesta es siempre StreamingResponseBody: el error también se escribe así
+  private ResponseEntity<StreamingResponseBody> error(HttpStatus status, String message) {
+    return ResponseEntity.status(status)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(out -> objectMapper.writeValue(out, Map.of("error", message)));
+  }
+}
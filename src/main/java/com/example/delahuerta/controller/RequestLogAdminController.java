@@ -0,0 +1,135 @@
+package com.example.delahuerta.controller;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.delahuerta.archive.RequestLogArchive;
+import com.example.delahuerta.model.RequestLog;
+import com.example.delahuerta.service.RequestLogExportService;
+
+import com.example.delahuerta.service.RequestLogAnalyticsService;
+import com.example.delahuerta.service.RequestLogAnalyticsService.Bucket;
+import com.example.delahuerta.service.RequestLogAnalyticsService.Dimension;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/admin/request-logs")
+public class RequestLogAdminController {
+
+  private static final int MAX_ROWS = 10_000;
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+  private final RequestLogAnalyticsService analyticsService;
+  private final RequestLogExportService exportService;
+  private final RequestLogArchive archive;
+  private final ObjectMapper objectMapper;
+
+  public RequestLogAdminController(RequestLogAnalyticsService analyticsService,
+                                   RequestLogExportService exportService, RequestLogArchive archive,
+                                   ObjectMapper objectMapper) {
+    this.analyticsService = analyticsService;
+    this.exportService = exportService;
+    this.archive = archive;
+    this.objectMapper = objectMapper;
+  }
+
+  // p. ej. ?groupBy=path  o  ?groupBy=ip&bucket=minute  (por defecto, la última hora)
+  @GetMapping("/analytics")
+  public ResponseEntity<?> analytics(
+      @RequestParam(required = false) String groupBy,
+      @RequestParam(required = false) String bucket,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(defaultValue = "50") int limit) {
+    try {
+      Dimension dimension = groupBy != null ? Dimension.valueOf(groupBy.toUpperCase(Locale.ROOT)) : null;
+      Bucket timeBucket = bucket != null ? Bucket.valueOf(bucket.toUpperCase(Locale.ROOT)) : null;
+      LocalDateTime end = to != null ? to : LocalDateTime.now();
+      LocalDateTime start = from != null ? from : end.minusHours(1);
+      return ResponseEntity.ok(analyticsService.countRequests(dimension, timeBucket, start, end,
+          Math.max(1, Math.min(limit, MAX_ROWS))));
+    } catch (IllegalArgumentException ex) {
+      return ResponseEntity.badRequest().body(Map.of("error",
+          "groupBy debe ser path, method o ip y bucket debe ser minute, hour o day (al menos uno)"));
+    }
+  }
+
+  // NDJSON en streaming (por defecto, el último día); con gzip=true se descarga como .ndjson.gz
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> export(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) String method,
+      @RequestParam(defaultValue = "false") boolean gzip) {
+    LocalDateTime end = to != null ? to : LocalDateTime.now();
+    LocalDateTime start = from != null ? from : end.minusDays(1);
+    String httpMethod = method != null ? method.toUpperCase(Locale.ROOT) : null;
+    return ndjson(gzip, "request-logs.ndjson.gz",
+        consumer -> exportService.forEachLog(start, end, httpMethod, consumer));
+  }
+
+  // Mismo formato que /export pero leyendo los segmentos archivados en disco (no toca MySQL).
+  // Sin from se recorre todo el archivo.
+  @GetMapping("/archive")
+  public ResponseEntity<StreamingResponseBody> archive(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) String method,
+      @RequestParam(defaultValue = "false") boolean gzip) {
+    LocalDateTime end = to != null ? to : LocalDateTime.now();
+    LocalDateTime start = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+    String httpMethod = method != null ? method.toUpperCase(Locale.ROOT) : null;
+    return ndjson(gzip, "request-logs-archive.ndjson.gz",
+        consumer -> archive.scan(start, end, httpMethod, consumer));
+  }
+
+  private ResponseEntity<StreamingResponseBody> ndjson(boolean gzip, String filename,
+                                                       Consumer<Consumer<RequestLog>> source) {
+    ObjectWriter writer = objectMapper.writerFor(RequestLog.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    StreamingResponseBody body = out -> {
+      OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+      // sin separador entre valores raíz: Jackson pondría un espacio al comienzo de cada línea
+      try (JsonGenerator gen = objectMapper.getFactory().createGenerator(target).setRootValueSeparator(null)) {
+        source.accept(log -> {
+          try {
+            writer.writeValue(gen, log);
+            gen.writeRaw('\n');
+          } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+          }
+        });
+      }
+    };
+
+    if (!gzip) {
+      return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType("application/gzip"))
+        .header(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(filename).build().toString())
+        .body(body);
+  }
+}
@@ -1,20 +1,51 @@
 package com.example.delahuerta.controller;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.delahuerta.model.User;
+import com.example.delahuerta.service.UserImportService;
+import com.example.delahuerta.service.UserListVersion;
 import com.example.delahuerta.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+  // el navegador puede guardar la lista pero debe revalidarla siempre con If-None-Match
+  private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
   private final UserService userService;
+  private final UserImportService userImportService;
+  private final ObjectMapper objectMapper;
+  private final UserListVersion userListVersion;
 
-  public UserController(UserService userService) {
+  public UserController(UserService userService, UserImportService userImportService,
+                        ObjectMapper objectMapper, UserListVersion userListVersion) {
     this.userService = userService;
+    this.userImportService = userImportService;
+    this.objectMapper = objectMapper;
+    this.userListVersion = userListVersion;
   }
 
   @PostMapping
@@ -23,8 +54,84 @@ public class UserController {
     return userService.createUser(u);
   }
 
+  // Cuerpo CSV (username,password,role) o NDJSON, procesado en streaming
+  @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+  public UserImportService.Result importUsers(HttpServletRequest request) throws IOException {
+    UserImportService.Format format = MediaType.parseMediaType(request.getContentType())
+        .isCompatibleWith(NDJSON) ? UserImportService.Format.NDJSON : UserImportService.Format.CSV;
+    return userImportService.importUsers(request.getInputStream(), format);
+  }
+
   @GetMapping
-  public List<User> all() {
+  public List<User> all(ServletWebRequest request) {
+    if (notModified(request)) {
+      return null;
+    }
     return userService.getAllUsers();
   }
-}
\ No newline at end of file
+
+  // GET /api/users?after=<id>&limit=<n>: "next" es el cursor de la siguiente página
+  @GetMapping(params = "limit")
+  public Map<String, Object> page(@RequestParam(defaultValue = "0") long after,
+                                  @RequestParam int limit, ServletWebRequest request) {
+    if (notModified(request)) {
+      return null;
+    }
+    int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    List<User> users = userService.getUsersAfter(after, size);
+
+    Map<String, Object> page = new LinkedHashMap<>();
+    page.put("items", users);
+    page.put("next", users.size() == size ? users.get(users.size() - 1).getId() : null);
+    return page;
+  }
+
+  @GetMapping(params = {"after", "!limit"})
+  public Map<String, Object> pageFrom(@RequestParam long after, ServletWebRequest request) {
+    return page(after, MAX_PAGE_SIZE, request);
+  }
+
+  // Arreglo JSON o NDJSON escrito directamente desde un cursor de la base de datos
+  @GetMapping("/stream")
+  public ResponseEntity<StreamingResponseBody> stream(@RequestParam(defaultValue = "json") String format,
+                                                      ServletWebRequest request) {
+    if (notModified(request)) {
+      return null;
+    }
+    boolean ndjson = "ndjson".equalsIgnoreCase(format);
+    // sin flush por fila: el búfer del contenedor decide cuándo enviar
+    ObjectWriter writer = objectMapper.writerFor(User.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    StreamingResponseBody body = out -> {
+      // sin separador entre valores raíz: Jackson pondría un espacio al comienzo de cada línea NDJSON
+      try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out).setRootValueSeparator(null)) {
+        if (!ndjson) {
+          gen.writeStartArray();
+        }
+        userService.forEachUser(user -> {
+          try {
+            writer.writeValue(gen, user);
+            if (ndjson) {
+              gen.writeRaw('\n');
+            }
+          } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+          }
+        });
+        if (!ndjson) {
+          gen.writeEndArray();
+        }
+      }
+    };
+    return ResponseEntity.ok()
+        .contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON)
+        .body(body);
+  }
+
+  // Responde 304 sin consultar la base de datos si el ETag del cliente sigue vigente.
+  // El ETag se lee antes de la consulta: un cambio concurrente lo deja atrás y la próxima vez hay 200.
+  private boolean notModified(ServletWebRequest request) {
+    request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+    return request.checkNotModified(userListVersion.etag());
+  }
+}
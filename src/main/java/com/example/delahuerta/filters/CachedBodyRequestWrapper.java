@@ -0,0 +1,86 @@
+package com.example.delahuerta.filters;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+// Lee el cuerpo una vez (hasta maxBytes) y lo deja disponible para el resto de la cadena
+public class CachedBodyRequestWrapper extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+    private final boolean truncated;
+
+    public CachedBodyRequestWrapper(HttpServletRequest request, int maxBytes) throws IOException {
+        super(request);
+        InputStream in = request.getInputStream();
+        byte[] read = in.readNBytes(maxBytes + 1);
+        this.truncated = read.length > maxBytes;
+        this.body = read;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return in.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            // El cuerpo ya está en memoria: todo está disponible de una vez
+            @Override
+            public void setReadListener(ReadListener listener) {
+                if (listener == null) {
+                    throw new NullPointerException("listener");
+                }
+                try {
+                    listener.onDataAvailable();
+                    if (isFinished()) {
+                        listener.onAllDataRead();
+                    }
+                } catch (IOException ex) {
+                    listener.onError(ex);
+                }
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        String encoding = getCharacterEncoding();
+        return new BufferedReader(new InputStreamReader(getInputStream(),
+                encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+    }
+}
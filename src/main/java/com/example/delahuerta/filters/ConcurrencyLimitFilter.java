@@ -0,0 +1,180 @@
+package com.example.delahuerta.filters;
+
+import com.example.delahuerta.concurrency.GradientLimit;
+import com.example.delahuerta.concurrency.RequestPriority;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Control de admisión: cuando MySQL se pone lento las peticiones se acumulan hasta agotar los hilos de
+// Tomcat y la latencia sube para todas las rutas. Este filtro deja pasar a lo sumo GradientLimit.getLimit()
+// peticiones a la vez y contesta 503 enseguida al resto, sin tocar la seguridad ni la base de datos.
+//
+// Cada clase de prioridad puede ocupar solo una fracción (share) del límite; con el límite lleno se
+// descartan primero las rutas LOW. Va después de RequestLoggingFilter para que los 503 queden registrados.
+// Las respuestas asíncronas (login, exportaciones en streaming) dejan su lugar al soltar el hilo de
+// Tomcat: lo que sigue ya lo acotan sus propios pools (LoginExecutor, MVC async) y no aporta muestras.
+// Tampoco aportan las rutas de rtt-excluded (la importación masiva tarda segundos por diseño): ocupan su
+// lugar en el límite, pero su duración no es cola y con la media de la ventana haría bajar el límite de todos.
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 50)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+
+    private final boolean enabled;
+    private final GradientLimit limit;
+    private final String[] highPaths;
+    private final String[] lowPaths;
+    private final String[] rttExcludedPaths;
+    private final double[] shares = new double[PRIORITIES.length];
+    private final long retryAfterSeconds;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final LongAdder[] admitted = new LongAdder[PRIORITIES.length];
+    private final LongAdder[] rejected = new LongAdder[PRIORITIES.length];
+
+    public ConcurrencyLimitFilter(@Value("${delahuerta.concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${delahuerta.concurrency-limit.initial-limit:20}") int initialLimit,
+                                  @Value("${delahuerta.concurrency-limit.min-limit:4}") int minLimit,
+                                  @Value("${delahuerta.concurrency-limit.max-limit:200}") int maxLimit,
+                                  @Value("${delahuerta.concurrency-limit.rtt-tolerance:1.5}") double tolerance,
+                                  @Value("${delahuerta.concurrency-limit.smoothing:0.2}") double smoothing,
+                                  @Value("${delahuerta.concurrency-limit.window-ms:500}") long windowMs,
+                                  @Value("${delahuerta.concurrency-limit.min-window-samples:10}") int minWindowSamples,
+                                  @Value("${delahuerta.concurrency-limit.high.paths:/api/login,/api/token/refresh,/api/admin/metrics/**}") String[] highPaths,
+                                  @Value("${delahuerta.concurrency-limit.high.share:1.0}") double highShare,
+                                  @Value("${delahuerta.concurrency-limit.normal.share:0.9}") double normalShare,
+                                  @Value("${delahuerta.concurrency-limit.low.paths:/api/admin/**,/api/debug/**}") String[] lowPaths,
+                                  @Value("${delahuerta.concurrency-limit.low.share:0.5}") double lowShare,
+                                  @Value("${delahuerta.concurrency-limit.rtt-excluded.paths:/api/users/import}") String[] rttExcludedPaths,
+                                  @Value("${delahuerta.concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.enabled = enabled;
+        this.limit = new GradientLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing,
+                TimeUnit.MILLISECONDS.toNanos(windowMs), minWindowSamples, System.nanoTime());
+        this.highPaths = highPaths;
+        this.lowPaths = lowPaths;
+        this.rttExcludedPaths = rttExcludedPaths;
+        this.shares[RequestPriority.HIGH.ordinal()] = highShare;
+        this.shares[RequestPriority.NORMAL.ordinal()] = normalShare;
+        this.shares[RequestPriority.LOW.ordinal()] = lowShare;
+        this.retryAfterSeconds = retryAfterSeconds;
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            admitted[i] = new LongAdder();
+            rejected[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String path = request.getServletPath();
+        RequestPriority priority = classify(path);
+        int started = tryAcquire(priority);
+        if (started < 0) {
+            rejected[priority.ordinal()].increment();
+            reject(response);
+            return;
+        }
+        admitted[priority.ordinal()].increment();
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long end = System.nanoTime();
+            inflight.decrementAndGet();
+            // una respuesta asíncrona ya liberó el hilo de Tomcat: su duración no es latencia de cola
+            if (!request.isAsyncStarted() && !matches(rttExcludedPaths, path)) {
+                limit.onSample(end - start, started, end);
+            }
+        }
+    }
+
+    // Devuelve las peticiones en curso antes de entrar, o -1 si la clase ya ocupa toda su parte
+    private int tryAcquire(RequestPriority priority) {
+        int allowed = Math.max(1, (int) (limit.getLimit() * shares[priority.ordinal()]));
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                return -1;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private RequestPriority classify(String path) {
+        if (matches(highPaths, path)) {
+            return RequestPriority.HIGH;
+        }
+        if (matches(lowPaths, path)) {
+            return RequestPriority.LOW;
+        }
+        return RequestPriority.NORMAL;
+    }
+
+    private static boolean matches(String[] patterns, String path) {
+        for (String pattern : patterns) {
+            if (PATHS.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Map<String, Object> stats() {
+        int currentLimit = limit.getLimit();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("limit", currentLimit);
+        stats.put("inflight", inflight.get());
+        stats.put("shortRttMs", limit.getShortRttMillis());
+        stats.put("longRttMs", limit.getLongRttMillis());
+        Map<String, Object> classes = new LinkedHashMap<>();
+        for (RequestPriority priority : PRIORITIES) {
+            Map<String, Object> perClass = new LinkedHashMap<>();
+            perClass.put("share", shares[priority.ordinal()]);
+            perClass.put("allowed", Math.max(1, (int) (currentLimit * shares[priority.ordinal()])));
+            perClass.put("admitted", admitted[priority.ordinal()].sum());
+            perClass.put("rejected", rejected[priority.ordinal()].sum());
+            classes.put(priority.name(), perClass);
+        }
+        stats.put("priorities", classes);
+        return stats;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"Servidor saturado, intente más tarde\"}");
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.delahuerta.filters;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cuenta los bytes del cuerpo de la respuesta sin guardarlos
+public class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final AtomicLong bytes = new AtomicLong();
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    public CountingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    public long getBytesWritten() {
+        return bytes.get();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            ServletOutputStream target = super.getOutputStream();
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    target.write(b);
+                    bytes.incrementAndGet();
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    target.write(b, off, len);
+                    bytes.addAndGet(len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    target.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    target.close();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return target.isReady();
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    target.setWriteListener(listener);
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            Writer target = super.getWriter();
+            writer = new PrintWriter(new Writer() {
+                @Override
+                public void write(char[] cbuf, int off, int len) throws IOException {
+                    target.write(cbuf, off, len);
+                    bytes.addAndGet(utf8Length(cbuf, off, len));
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    target.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    target.close();
+                }
+            });
+        }
+        return writer;
+    }
+
+    // Largo en UTF-8 sin codificar (los pares sustitutos suman 2 + 2 = 4 bytes)
+    private static long utf8Length(char[] cbuf, int off, int len) {
+        long count = 0;
+        for (int i = off; i < off + len; i++) {
+            char c = cbuf[i];
+            if (c < 0x80) {
+                count += 1;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                count += 2;
+            } else {
+                count += 3;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.delahuerta.filters;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+// Filtra campos JSON a medida que llegan los bytes, sin armar el documento en memoria:
+// el parser no bloqueante de Jackson entrega tokens y se copian al generador salvo los excluidos.
+// Se guardan los bytes recibidos que todavía no forman un token completo: si el cuerpo resulta no ser
+// JSON válido, se envían tal cual junto con el resto y la respuesta llega entera.
+public class JsonFieldFilteringOutputStream extends ServletOutputStream {
+
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.FLUSH_PASSED_TO_STREAM)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final ServletOutputStream target;
+    private final String excludedSuffix;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final JsonGenerator generator;
+
+    private boolean skipping;
+    private int skipDepth;
+    private boolean passthrough;
+    private boolean finished;
+
+    // bytes recibidos desde pendingStart (posición en el cuerpo); tokenEnd es el final del último token
+    private byte[] pending = new byte[256];
+    private int pendingLength;
+    private long pendingStart;
+    private long tokenEnd;
+
+    public JsonFieldFilteringOutputStream(ServletOutputStream target, String excludedSuffix) throws IOException {
+        this.target = target;
+        this.excludedSuffix = excludedSuffix;
+        this.parser = JSON.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.generator = JSON.createGenerator(target);
+        // varios valores raíz (NDJSON) se separan con salto de línea
+        this.generator.setRootValueSeparator(new SerializedString("\n"));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (passthrough) {
+            target.write(b, off, len);
+            return;
+        }
+        append(b, off, len);
+        feeder.feedInput(b, off, off + len);
+        drain();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!passthrough) {
+            generator.flush();
+        }
+        target.flush();
+    }
+
+    // Procesa lo pendiente (p. ej. un número al final) y vuelca el generador
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (!passthrough) {
+            feeder.endOfInput();
+            drain();
+            generator.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        target.close();
+    }
+
+    @Override
+    public boolean isReady() {
+        return target.isReady();
+    }
+
+    @Override
+    public void setWriteListener(WriteListener listener) {
+        target.setWriteListener(listener);
+    }
+
+    private void drain() throws IOException {
+        try {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token);
+                tokenEnd = parser.currentLocation().getByteOffset();
+            }
+        } catch (JsonProcessingException ex) {
+            // no era JSON válido: se envía lo que el parser no llegó a convertir en tokens y, de ahí
+            // en adelante, el resto tal cual
+            generator.flush();
+            int unparsed = (int) (tokenEnd - pendingStart);
+            target.write(pending, unparsed, pendingLength - unparsed);
+            pendingLength = 0;
+            passthrough = true;
+            return;
+        }
+        discardUpTo(tokenEnd);
+    }
+
+    private void append(byte[] b, int off, int len) {
+        if (pendingLength + len > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + len));
+        }
+        System.arraycopy(b, off, pending, pendingLength, len);
+        pendingLength += len;
+    }
+
+    private void discardUpTo(long offset) {
+        int consumed = (int) Math.min(offset - pendingStart, pendingLength);
+        if (consumed <= 0) {
+            return;
+        }
+        System.arraycopy(pending, consumed, pending, 0, pendingLength - consumed);
+        pendingLength -= consumed;
+        pendingStart += consumed;
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        if (skipping) {
+            if (token.isStructStart()) {
+                skipDepth++;
+            } else if (token.isStructEnd()) {
+                skipDepth--;
+            }
+            skipping = skipDepth > 0;
+            return;
+        }
+        if (token == JsonToken.FIELD_NAME && parser.currentName().endsWith(excludedSuffix)) {
+            skipping = true;
+            skipDepth = 0;
+            return;
+        }
+        generator.copyCurrentEventExact(parser);
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.delahuerta.filters;
 
+import com.example.delahuerta.profiling.JwtAuthenticationEvent;
 import com.example.delahuerta.security.jwt.JwtUtils;
+import com.example.delahuerta.security.jwt.TokenRevocationList;
 import com.example.delahuerta.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,6 +30,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private TokenRevocationList revocationList;
+
+    @Value("${delahuerta.security.claims-authentication:true}")
+    private boolean claimsAuthentication;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -40,14 +51,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
+        // JFR: mide solo el trabajo de este filtro, no el resto de la cadena
+        JwtAuthenticationEvent event = new JwtAuthenticationEvent();
+        event.begin();
+
         jwt = authHeader.substring(7);
-        username = jwtUtils.extractUsername(jwt);
+        final Claims claims;
+        try {
+            // se parsea y verifica una sola vez por petición
+            claims = jwtUtils.parseClaims(jwt);
+        } catch (JwtException | IllegalArgumentException ex) {
+            commit(event, request, null, "invalid");
+            filterChain.doFilter(request, response);
+            return;
+        }
+        // en memoria: un token no revocado se descarta en el filtro de Bloom sin más trabajo
+        if (revocationList.isRevoked(claims)) {
+            commit(event, request, claims.getSubject(), "revoked");
+            filterChain.doFilter(request, response);
+            return;
+        }
+        username = claims.getSubject();
+        String outcome = "rejected";
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            // con el rol en el token no hace falta consultar al usuario
+            UserDetails userDetails = claimsAuthentication ? jwtUtils.toUserDetails(claims) : null;
+            if (userDetails == null) {
+                userDetails = this.userDetailsService.loadUserByUsername(username);
+            }
 
-            if (jwtUtils.validateToken(jwt, userDetails)) {
+            if (jwtUtils.validateClaims(claims, userDetails)) {
 
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
@@ -59,9 +94,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                outcome = "authenticated";
             }
         }
 
+        commit(event, request, username, outcome);
         filterChain.doFilter(request, response);
     }
+
+    private static void commit(JwtAuthenticationEvent event, HttpServletRequest request,
+                               String username, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = request.getRequestURI();
+            event.username = username;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
 }
@@ -0,0 +1,135 @@
+package com.example.delahuerta.filters;
+
+import com.example.delahuerta.security.ratelimit.TokenBucketLimiter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Corta los intentos de login abusivos con 429 antes de llegar a BCrypt o al repositorio
+@Component
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final boolean enabled;
+    private final int maxBodyBytes;
+    private final TokenBucketLimiter ipLimiter;
+    private final TokenBucketLimiter usernameLimiter;
+    private final LongAdder rejectedByIp = new LongAdder();
+    private final LongAdder rejectedByUsername = new LongAdder();
+
+    public LoginRateLimitFilter(@Value("${delahuerta.login-rate-limit.enabled:true}") boolean enabled,
+                                @Value("${delahuerta.login-rate-limit.ip.capacity:20}") int ipCapacity,
+                                @Value("${delahuerta.login-rate-limit.ip.refill-per-minute:20}") int ipRefill,
+                                @Value("${delahuerta.login-rate-limit.username.capacity:5}") int usernameCapacity,
+                                @Value("${delahuerta.login-rate-limit.username.refill-per-minute:5}") int usernameRefill,
+                                @Value("${delahuerta.login-rate-limit.max-keys:100000}") int maxKeys,
+                                @Value("${delahuerta.login-rate-limit.max-body-bytes:8192}") int maxBodyBytes) {
+        this.enabled = enabled;
+        this.maxBodyBytes = maxBodyBytes;
+        this.ipLimiter = new TokenBucketLimiter(ipCapacity, ipRefill, maxKeys);
+        this.usernameLimiter = new TokenBucketLimiter(usernameCapacity, usernameRefill, maxKeys);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !"POST".equals(request.getMethod())
+                || !"/api/login".equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long wait = ipLimiter.tryAcquire(request.getRemoteAddr());
+        if (wait > 0) {
+            rejectedByIp.increment();
+            reject(response, wait);
+            return;
+        }
+
+        CachedBodyRequestWrapper wrapped = new CachedBodyRequestWrapper(request, maxBodyBytes);
+        if (wrapped.isTruncated()) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+
+        String username = extractUsername(wrapped.getBody());
+        if (username != null) {
+            wait = usernameLimiter.tryAcquire(username.toLowerCase(Locale.ROOT));
+            if (wait > 0) {
+                rejectedByUsername.increment();
+                reject(response, wait);
+                return;
+            }
+        }
+
+        filterChain.doFilter(wrapped, response);
+    }
+
+    @Scheduled(fixedDelayString = "${delahuerta.login-rate-limit.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        ipLimiter.evictIdle();
+        usernameLimiter.evictIdle();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ipBuckets", ipLimiter.size());
+        stats.put("usernameBuckets", usernameLimiter.size());
+        stats.put("rejectedByIp", rejectedByIp.sum());
+        stats.put("rejectedByUsername", rejectedByUsername.sum());
+        return stats;
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"Demasiados intentos, intente más tarde\"}");
+    }
+
+    // Solo busca el campo "username" del primer nivel, sin construir el árbol JSON
+    private static String extractUsername(byte[] body) {
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("username".equals(field) && value == JsonToken.VALUE_STRING) {
+                    return parser.getText();
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+}
@@ -2,22 +2,35 @@ package com.example.delahuerta.filters;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
 
+import com.example.delahuerta.metrics.RouteLatencyRegistry;
 import com.example.delahuerta.model.RequestLog;
-import com.example.delahuerta.repository.RequestLogRepository;
+import com.example.delahuerta.service.RequestLogSampler;
+import com.example.delahuerta.service.RequestLogWriter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
+// Antes de la cadena de seguridad, para medir también los 401/403/429
 @Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 100)
 public class RequestLoggingFilter implements Filter {
-    @Autowired private RequestLogRepository logRepository;
+    @Autowired private RequestLogWriter logWriter;
+    @Autowired private RouteLatencyRegistry latencyRegistry;
+    @Autowired private RequestLogSampler sampler;
 
     @Override
     public void doFilter(ServletRequest request,
@@ -25,13 +38,71 @@ public class RequestLoggingFilter implements Filter {
 
     throws IOException, ServletException {
         HttpServletRequest req = (HttpServletRequest) request;
+        CountingResponseWrapper res = new CountingResponseWrapper((HttpServletResponse) response);
+        long start = System.nanoTime();
         RequestLog log = new RequestLog();
         log.setMethod(req.getMethod());
         log.setPath(req.getRequestURI());
         log.setIp(req.getRemoteAddr());
         log.setTimestamp(LocalDateTime.now());
 
-        logRepository.save(log); // persistir en la base de datos
-        chain.doFilter(request, response);
+        // una excepción que escapa de la cadena la convierte el contenedor en 500 después de este filtro:
+        // en ese momento la respuesta todavía dice 200
+        boolean failed = true;
+        try {
+            chain.doFilter(request, res);
+            failed = false;
+        } finally {
+            if (req.isAsyncStarted()) {
+                // la respuesta termina en otro hilo: se registra al completarse, que llega también
+                // después de un timeout o un error
+                AtomicInteger failedStatus = new AtomicInteger(failed ? 500 : 0);
+                req.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        complete(log, req, res, start, failedStatus.get());
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        failedStatus.compareAndSet(0, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        failedStatus.compareAndSet(0, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                complete(log, req, res, start, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : 0);
+            }
+        }
+    }
+
+    // failedStatus > 0 reemplaza al status de la respuesta si este no es ya un 5xx
+    private void complete(RequestLog log, HttpServletRequest req, CountingResponseWrapper res, long start,
+                          int failedStatus) {
+        long micros = (System.nanoTime() - start) / 1000;
+        int status = res.getStatus();
+        if (failedStatus > 0 && status < 500) {
+            status = failedStatus;
+        }
+        log.setDurationMs(micros / 1000);
+        log.setStatus(status);
+        log.setResponseBytes(res.getBytesWritten());
+
+        Object pattern = req.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        latencyRegistry.record(req.getMethod() + " " + (pattern != null ? pattern : "UNMATCHED"), micros, status);
+
+        // los histogramas ven todas las peticiones; a la base solo llega la muestra, con su peso
+        int weight = sampler.weight(req.getMethod(), req.getRequestURI(), status, log.getDurationMs());
+        if (weight > 0) {
+            log.setSampleWeight(weight);
+            logWriter.enqueue(log); // se persiste en segundo plano, por lotes
+        }
     }
 }
@@ -1,58 +1,141 @@
 package com.example.delahuerta.filters;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.Iterator;
 
-import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
 
-//@Component
+// Elimina los atributos "*id" de las respuestas JSON en streaming (objetos, arreglos y NDJSON)
+@Component
+@ConditionalOnProperty(name = "delahuerta.response-sanitization.enabled", havingValue = "true")
 public class ResponseSanitizationFilter implements Filter {
+
+    private final String excludedSuffix;
+
+    public ResponseSanitizationFilter(@Value("${delahuerta.response-sanitization.field-suffix:id}") String excludedSuffix) {
+        this.excludedSuffix = excludedSuffix;
+    }
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
     throws IOException, ServletException {
 
-    ContentCachingResponseWrapper wrappedResponse
-    = new ContentCachingResponseWrapper(
-        (HttpServletResponse) response
+    SanitizingResponseWrapper wrappedResponse
+    = new SanitizingResponseWrapper(
+        (HttpServletResponse) response, excludedSuffix
     );
     chain.doFilter(request, wrappedResponse);
 
-    String responseBody
-    = new String(
-        wrappedResponse.getContentAsByteArray(),
-        StandardCharsets.UTF_8
-    );
-    String sanitized = sanitizeJson(responseBody);
-
-    response.getWriter().write(sanitized);
-    wrappedResponse.copyBodyToResponse();
+    // en peticiones asíncronas el cuerpo se completa con el flush del conversor
+    if (!request.isAsyncStarted()) {
+        wrappedResponse.finish();
     }
-
-    private String sanitizeJson(String json) {
-    JSONObject jsonObject = new JSONObject(json);
-    removeIdAttributes(jsonObject);
-    return jsonObject.toString();
     }
 
-    private void removeIdAttributes(JSONObject jsonObject) {
-    Iterator<String> keys = jsonObject.keys();
-        while (keys.hasNext()) {
-            String key = keys.next();
-            if (key.endsWith("id")) {
-                keys.remove();
-            } else if (jsonObject.get(key) instanceof JSONObject) {
-                removeIdAttributes(jsonObject.getJSONObject(key));
+    private static final class SanitizingResponseWrapper extends HttpServletResponseWrapper {
+
+        private final String excludedSuffix;
+        private JsonFieldFilteringOutputStream sanitizingStream;
+        private PrintWriter writer;
+
+        private SanitizingResponseWrapper(HttpServletResponse response, String excludedSuffix) {
+            super(response);
+            this.excludedSuffix = excludedSuffix;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (sanitizingStream != null) {
+                return sanitizingStream;
+            }
+            if (!isJson()) {
+                return super.getOutputStream();
+            }
+            sanitizingStream = new JsonFieldFilteringOutputStream(super.getOutputStream(), excludedSuffix);
+            return sanitizingStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer != null) {
+                return writer;
+            }
+            if (!isJson()) {
+                return super.getWriter();
+            }
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset));
+            return writer;
+        }
+
+        // el largo cambia al quitar campos: se responde en chunked
+        @Override
+        public void setContentLength(int len) {
+            if (!isJson()) {
+                super.setContentLength(len);
             }
         }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (!isJson()) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!(HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) && isJson())) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!(HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) && isJson())) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (sanitizingStream != null) {
+                sanitizingStream.flush();
+            }
+            super.flushBuffer();
+        }
+
+        private void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (sanitizingStream != null) {
+                sanitizingStream.finish();
+            }
+        }
+
+        private boolean isJson() {
+            String contentType = getContentType();
+            return contentType != null && contentType.toLowerCase().contains("json");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,136 @@
+package com.example.delahuerta.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Histograma de latencias sin locks sobre una ventana deslizante de "slots" de tiempo.
+// Buckets log-lineales: 8 sub-buckets por potencia de dos (error relativo < 12.5%),
+// en microsegundos hasta ~71 minutos.
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 31;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+
+    private final Slot[] slots;
+    private final long slotMillis;
+
+    public LatencyHistogram(int slotCount, long slotMillis) {
+        this.slots = new Slot[slotCount];
+        this.slotMillis = slotMillis;
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    public void record(long micros, boolean error, long nowMillis) {
+        long value = Math.max(0, Math.min(micros, MAX_VALUE));
+        long epoch = nowMillis / slotMillis;
+        Slot slot = slots[(int) (epoch % slots.length)];
+
+        long current = slot.epoch.get();
+        if (current < epoch && slot.epoch.compareAndSet(current, epoch)) {
+            // el slot quedó viejo: se reinicia (algunas muestras concurrentes pueden perderse)
+            slot.reset();
+        }
+        slot.counts.incrementAndGet(bucketIndex(value));
+        slot.total.incrementAndGet();
+        if (error) {
+            slot.errors.incrementAndGet();
+        }
+        slot.max.accumulateAndGet(value, Math::max);
+    }
+
+    // Resumen de los últimos windowMillis (como máximo, toda la ventana del histograma)
+    public Map<String, Object> snapshot(long windowMillis, long nowMillis) {
+        long newest = nowMillis / slotMillis;
+        long slotsInWindow = Math.max(1, Math.min(slots.length, windowMillis / slotMillis));
+        long oldest = newest - slotsInWindow + 1;
+
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        long errors = 0;
+        long max = 0;
+        for (Slot slot : slots) {
+            long epoch = slot.epoch.get();
+            if (epoch < oldest || epoch > newest) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += slot.counts.get(i);
+            }
+            total += slot.total.get();
+            errors += slot.errors.get();
+            max = Math.max(max, slot.max.get());
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", total);
+        snapshot.put("errors", errors);
+        snapshot.put("p50Ms", toMillis(percentile(counts, total, 0.50)));
+        snapshot.put("p95Ms", toMillis(percentile(counts, total, 0.95)));
+        snapshot.put("p99Ms", toMillis(percentile(counts, total, 0.99)));
+        snapshot.put("maxMs", toMillis(max));
+        return snapshot;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) ((value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1));
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    // Límite superior del bucket: el percentil reportado nunca subestima
+    static long bucketUpperBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        int sub = index % SUB_COUNT;
+        long lower = (long) (SUB_COUNT + sub) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    private static long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(counts.length - 1);
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Slot {
+        private final AtomicLong epoch = new AtomicLong(-1);
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        private void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            total.set(0);
+            errors.set(0);
+            max.set(0);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.delahuerta.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Un LatencyHistogram por ruta ("GET /api/users/{id}"), en memoria, sin tocar la base de datos
+@Component
+public class RouteLatencyRegistry {
+
+    private static final String OTHER_ROUTE = "OTHER";
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final int slots;
+    private final long slotMillis;
+    private final int maxRoutes;
+
+    public RouteLatencyRegistry(@Value("${delahuerta.metrics.latency.window-seconds:300}") long windowSeconds,
+                                @Value("${delahuerta.metrics.latency.slots:20}") int slots,
+                                @Value("${delahuerta.metrics.latency.max-routes:200}") int maxRoutes) {
+        this.slots = slots;
+        this.slotMillis = Math.max(1, windowSeconds * 1000 / slots);
+        this.maxRoutes = maxRoutes;
+    }
+
+    public void record(String route, long micros, int status) {
+        LatencyHistogram histogram = histograms.get(route);
+        if (histogram == null) {
+            // las rutas son patrones, pero por si acaso se limita la cardinalidad
+            String key = histograms.size() >= maxRoutes ? OTHER_ROUTE : route;
+            histogram = histograms.computeIfAbsent(key, k -> new LatencyHistogram(slots, slotMillis));
+        }
+        histogram.record(micros, status >= 500, System.currentTimeMillis());
+    }
+
+    // Rutas ordenadas por p99 descendente
+    public List<Map<String, Object>> snapshot(long windowSeconds) {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> routes = new ArrayList<>();
+        histograms.forEach((route, histogram) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("route", route);
+            entry.putAll(histogram.snapshot(windowSeconds * 1000, now));
+            if ((long) entry.get("count") > 0) {
+                routes.add(entry);
+            }
+        });
+        routes.sort(Comparator.comparing((Map<String, Object> entry) -> (double) entry.get("p99Ms")).reversed());
+        return routes;
+    }
+}
@@ -3,16 +3,23 @@ package com.example.delahuerta.model;
 import java.time.LocalDateTime;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 
+// Tabla e índices definidos en db/migration
 @Entity
 public class RequestLog {
-    @Id @GeneratedValue
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String method;
     private String path;
     private String ip;
     private LocalDateTime timestamp;
+    private Long durationMs;
+    private Integer status;
+    private Long responseBytes;
+    // Peticiones que representa la fila según el muestreo de RequestLogSampler
+    private int sampleWeight = 1;
 
     // Getters
     public Long getId() {
@@ -35,6 +42,22 @@ public class RequestLog {
         return timestamp;
     }
 
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public Long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public int getSampleWeight() {
+        return sampleWeight;
+    }
+
     // Setters
     public void setId(Long id) {
         this.id = id;
@@ -55,4 +78,20 @@ public class RequestLog {
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
+
+    public void setDurationMs(Long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public void setResponseBytes(Long responseBytes) {
+        this.responseBytes = responseBytes;
+    }
+
+    public void setSampleWeight(int sampleWeight) {
+        this.sampleWeight = sampleWeight;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.example.delahuerta.profiling;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+// Grabaciones JFR a pedido sobre la instancia en marcha, sin reiniciarla. Una sola a la vez y con duración
+// acotada: "default" cuesta menos del 1 %, "profile" agrega muestreo de métodos y asignaciones (~2 %).
+// Los eventos delahuerta.* no figuran en esos perfiles y quedan habilitados por defecto.
+@Component
+public class JfrRecordingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrRecordingService.class);
+
+    private final long maxSeconds;
+    private final long maxBytes;
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public JfrRecordingService(@Value("${delahuerta.profiling.max-seconds:120}") long maxSeconds,
+                               @Value("${delahuerta.profiling.max-bytes:104857600}") long maxBytes) {
+        this.maxSeconds = maxSeconds;
+        this.maxBytes = maxBytes;
+    }
+
+    public List<Map<String, Object>> settings() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Configuration configuration : Configuration.getConfigurations()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", configuration.getName());
+            item.put("label", configuration.getLabel());
+            item.put("description", configuration.getDescription());
+            result.add(item);
+        }
+        return result;
+    }
+
+    // IllegalArgumentException si los parámetros no sirven; IllegalStateException si ya hay otra en curso
+    public Recording start(String settings, long seconds) {
+        if (seconds < 1 || seconds > maxSeconds) {
+            throw new IllegalArgumentException("seconds debe estar entre 1 y " + maxSeconds);
+        }
+        Configuration configuration = Configuration.getConfigurations().stream()
+                .filter(candidate -> candidate.getName().equals(settings))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Perfil de JFR desconocido: " + settings));
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("JFR no está disponible en esta JVM");
+        }
+        if (!busy.compareAndSet(false, true)) {
+            rejected.increment();
+            throw new IllegalStateException("Ya hay una grabación en curso");
+        }
+        try {
+            Recording recording = new Recording(configuration);
+            recording.setName("delahuerta-" + System.currentTimeMillis());
+            recording.setToDisk(true);
+            recording.setMaxSize(maxBytes);
+            recording.setDuration(Duration.ofSeconds(seconds));
+            recording.start();
+            logger.info("Grabación JFR iniciada: {} s con el perfil {}", seconds, settings);
+            return recording;
+        } catch (RuntimeException ex) {
+            busy.set(false);
+            throw ex;
+        }
+    }
+
+    // Espera el final de la grabación y copia el .jfr a out. Corre en el pool de MVC asíncrono.
+    public void finish(Recording recording, OutputStream out) throws IOException {
+        try {
+            Duration duration = recording.getDuration();
+            long deadline = recording.getStartTime().plus(duration).toEpochMilli();
+            long wait;
+            while ((wait = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            try {
+                recording.stop();
+            } catch (IllegalStateException ex) {
+                // con setDuration JFR ya la detuvo al vencer el plazo
+            }
+            try (InputStream in = recording.getStream(null, null)) {
+                if (in != null) {
+                    in.transferTo(out);
+                }
+            }
+            completed.increment();
+        } finally {
+            recording.close();
+            busy.set(false);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("available", FlightRecorder.isAvailable());
+        stats.put("recording", busy.get());
+        stats.put("maxSeconds", maxSeconds);
+        stats.put("completed", completed.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+}
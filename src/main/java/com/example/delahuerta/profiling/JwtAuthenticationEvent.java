@@ -0,0 +1,27 @@
+package com.example.delahuerta.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JwtAuthenticationFilter completo para una petición con "Authorization: Bearer". Nunca lleva el token.
+@Name("delahuerta.JwtAuthentication")
+@Label("JWT Authentication")
+@Description("Verificación del token, chequeo de revocación y carga del usuario en JwtAuthenticationFilter")
+@Category({"Delahuerta", "Security"})
+@StackTrace(false)
+public class JwtAuthenticationEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Username")
+    public String username;
+
+    // authenticated, invalid, revoked o rejected
+    @Label("Outcome")
+    public String outcome;
+}
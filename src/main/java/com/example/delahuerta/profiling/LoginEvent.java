@@ -0,0 +1,29 @@
+package com.example.delahuerta.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Autenticación con contraseña en el pool de login. La búsqueda del usuario y BCrypt aparecen como
+// UserLookup y PasswordHash en el mismo hilo, dentro de este intervalo.
+@Name("delahuerta.Login")
+@Label("Login")
+@Description("AuthController.login dentro de LoginExecutor, sin contar la espera en la cola")
+@Category({"Delahuerta", "Security"})
+@StackTrace(false)
+public class LoginEvent extends Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Authenticated")
+    public boolean authenticated;
+
+    @Label("Queue Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueWait;
+}
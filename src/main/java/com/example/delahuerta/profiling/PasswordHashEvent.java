@@ -0,0 +1,24 @@
+package com.example.delahuerta.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Una llamada a BCrypt (login, alta o importación de usuarios). Sin usuario: el encoder no lo conoce.
+@Name("delahuerta.PasswordHash")
+@Label("Password Hash")
+@Description("BCrypt: encode al guardar una contraseña, matches al verificarla")
+@Category({"Delahuerta", "Security"})
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    // encode o matches
+    @Label("Operation")
+    public String operation;
+
+    @Label("Matched")
+    public boolean matched;
+}
@@ -0,0 +1,23 @@
+package com.example.delahuerta.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Un INSERT por lotes de RequestLogWriter (hilo request-log-writer, fuera de la petición)
+@Name("delahuerta.RequestLogInsert")
+@Label("Request Log Insert")
+@Description("Escritura por lotes en request_log")
+@Category({"Delahuerta", "Request Log"})
+@StackTrace(false)
+public class RequestLogInsertEvent extends Event {
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,26 @@
+package com.example.delahuerta.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// UserDetailsServiceImpl.loadUserByUsername: caché o UserBatchLoader (espera del lote incluida)
+@Name("delahuerta.UserLookup")
+@Label("User Lookup")
+@Description("Carga de UserDetails por nombre de usuario")
+@Category({"Delahuerta", "Security"})
+@StackTrace(false)
+public class UserLookupEvent extends Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Cache Hit")
+    public boolean cacheHit;
+
+    @Label("Found")
+    public boolean found;
+}
@@ -1,9 +1,31 @@
 package com.example.delahuerta.repository;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import com.example.delahuerta.model.RequestLog;
+
+import jakarta.persistence.QueryHint;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface RequestLogRepository extends JpaRepository<RequestLog, Long> {
     List<RequestLog> findByMethod(String method);
-}
\ No newline at end of file
+
+    // Cursores de solo avance para exportar; cada uno recorre el índice que empieza por sus filtros
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select r from RequestLog r where r.timestamp >= :from and r.timestamp < :to order by r.timestamp")
+    Stream<RequestLog> streamByTimestamp(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select r from RequestLog r where r.method = :method and r.timestamp >= :from and r.timestamp < :to"
+            + " order by r.timestamp")
+    Stream<RequestLog> streamByMethodAndTimestamp(@Param("method") String method,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+}
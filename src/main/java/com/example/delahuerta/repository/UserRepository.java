@@ -1,9 +1,33 @@
 package com.example.delahuerta.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import com.example.delahuerta.model.User;;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import com.example.delahuerta.model.User;
+
+import jakarta.persistence.QueryHint;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Sin readOnly a propósito: son las búsquedas de autenticación y van siempre al primario. Tras invalidar
+    // UserDetailsCache, una réplica atrasada devolvería la contraseña o el rol viejos y quedarían en caché
+    // todo el TTL.
     Optional<User> findByUsername(String username);
-}
\ No newline at end of file
+
+    // Lotes de UserBatchLoader: una sola consulta por el índice único de username
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    // Paginación por keyset: usa el índice de la clave primaria, sin OFFSET
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Cursor de solo avance; con useCursorFetch=true MySQL entrega las filas por bloques
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAllOrderById();
+}
@@ -1,7 +1,11 @@
 package com.example.delahuerta.security;
 
 import com.example.delahuerta.filters.JwtAuthenticationFilter;
+import com.example.delahuerta.filters.LoginRateLimitFilter;
+import com.example.delahuerta.profiling.ProfiledPasswordEncoder;
 import com.example.delahuerta.security.services.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -22,11 +26,14 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final LoginRateLimitFilter loginRateLimitFilter;
     private final UserDetailsServiceImpl userDetailsService;
 
     public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter,
+                          LoginRateLimitFilter loginRateLimitFilter,
                           UserDetailsServiceImpl userDetailsService) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.loginRateLimitFilter = loginRateLimitFilter;
         this.userDetailsService = userDetailsService;
     }
 
@@ -35,9 +42,13 @@ public class SecurityConfig {
         return authConfig.getAuthenticationManager();
     }
 
+    @Value("${delahuerta.security.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    // Cada llamada a BCrypt queda como evento JFR (delahuerta.PasswordHash)
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new ProfiledPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength));
     }
 
     @Bean
@@ -54,8 +65,12 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // El despacho ASYNC (streaming) ya fue autorizado en la petición original
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                 // Rutas públicas primero
                 .requestMatchers("/api/login").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/token/refresh").permitAll()
                 .requestMatchers("/api/debug/**").permitAll() // TEMPORAL para debug
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                 
@@ -73,6 +88,8 @@ public class SecurityConfig {
                 .anyRequest().authenticated()
             )
             .authenticationProvider(authenticationProvider())
+            // el límite de intentos va antes de cualquier trabajo de autenticación
+            .addFilterBefore(loginRateLimitFilter, UsernamePasswordAuthenticationFilter.class)
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
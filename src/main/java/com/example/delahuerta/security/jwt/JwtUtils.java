@@ -2,50 +2,228 @@ package com.example.delahuerta.security.jwt;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class JwtUtils {
     private static final String JWT_SECRET = "MySuperSecretKeyForJwtGenerationThatShouldBeVeryLong123456";
 
-    private static final long JWT_EXPIRATION_MS = 24 * 60 * 60 * 1000;
+    private static final String ROLE_CLAIM = "role";
+    private static final String ROLE_PREFIX = "ROLE_";
 
     private final Key key = Keys.hmacShaKeyFor(JWT_SECRET.getBytes());
 
+    // El parser de jjwt es inmutable y seguro entre hilos: se construye una sola vez
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build();
+
+    // Claims ya verificados, indexados por el SHA-256 del token y válidos hasta su "exp"
+    private final Map<String, CachedClaims> cache = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final boolean cacheEnabled;
+    private final int cacheMaxSize;
+    private final long expirationMs;
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder verificationNanos = new LongAdder();
+
+    // Los tokens de acceso duran poco: los clientes los renuevan con un refresh token, sin BCrypt
+    public JwtUtils(@Value("${delahuerta.jwt.cache.enabled:true}") boolean cacheEnabled,
+                    @Value("${delahuerta.jwt.cache.max-size:10000}") int cacheMaxSize,
+                    @Value("${delahuerta.jwt.access-token-ttl:15m}") Duration accessTokenTtl) {
+        this.cacheEnabled = cacheEnabled;
+        this.cacheMaxSize = cacheMaxSize;
+        this.expirationMs = accessTokenTtl.toMillis();
+    }
+
     public String generateToken(String username) {
         return Jwts.builder()
                 .setSubject(username)
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    // Incluye el rol en el token para poder autenticar sin consultar la base de datos
+    public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails, UUID.randomUUID().toString());
+    }
+
+    // Con un "jti" elegido por quien llama, para poder revocarlo después
+    public String generateToken(UserDetails userDetails, String jti) {
+        return Jwts.builder()
+                .setSubject(userDetails.getUsername())
+                .setId(jti)
+                .claim(ROLE_CLAIM, extractRole(userDetails))
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + JWT_EXPIRATION_MS))
+                .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    public long getExpirationMs() {
+        return expirationMs;
+    }
+
+    // Rol sin el prefijo ROLE_, tomado de las authorities del usuario
+    public static String extractRole(UserDetails userDetails) {
+        return userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith(ROLE_PREFIX))
+                .map(authority -> authority.substring(ROLE_PREFIX.length()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Verifica firma y expiración una sola vez; lanza JwtException si el token no es válido
+    public Claims parseClaims(String token) {
+        if (!cacheEnabled) {
+            return verify(token);
+        }
+
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        CachedClaims cached = cache.get(digest);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                cacheHits.increment();
+                return cached.claims;
+            }
+            cache.remove(digest, cached);
+        }
+
+        cacheMisses.increment();
+        Claims claims = verify(token);
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            if (cache.size() >= cacheMaxSize) {
+                evict(now);
+            }
+            cache.put(digest, new CachedClaims(claims, expiration.getTime()));
+        }
+        return claims;
+    }
+
     public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseClaims(token).getSubject();
+    }
+
+    public boolean validateToken(String token, UserDetails userDetails) {
+        try {
+            return validateClaims(parseClaims(token), userDetails);
+        } catch (JwtException | IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    public boolean validateClaims(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        return (username != null && username.equals(userDetails.getUsername()) && !isTokenExpired(claims));
+    }
+
+    // Construye el principal a partir de claims ya verificados; null si el token no trae rol
+    public UserDetails toUserDetails(Claims claims) {
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (claims.getSubject() == null || role == null) {
+            return null;
+        }
+        List<GrantedAuthority> auths = List.of(new SimpleGrantedAuthority(ROLE_PREFIX + role));
+        return new User(claims.getSubject(), "", auths);
     }
 
-    public boolean validateToken(String token, org.springframework.security.core.userdetails.UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public Map<String, Object> stats() {
+        long hits = cacheHits.sum();
+        long misses = cacheMisses.sum();
+        long count = verifications.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cacheEnabled", cacheEnabled);
+        stats.put("cacheSize", cache.size());
+        stats.put("cacheMaxSize", cacheMaxSize);
+        stats.put("cacheHits", hits);
+        stats.put("cacheMisses", misses);
+        stats.put("cacheHitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("verifications", count);
+        stats.put("avgVerificationMicros", count == 0 ? 0.0 : verificationNanos.sum() / 1000.0 / count);
+        return stats;
     }
 
     // ⏳ Verifica si el token ya expiró
-    private boolean isTokenExpired(String token) {
-        final Date expiration = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
-        return expiration.before(new Date());
+    private boolean isTokenExpired(Claims claims) {
+        final Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
+    }
+
+    private Claims verify(String token) {
+        long start = System.nanoTime();
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } finally {
+            verifications.increment();
+            verificationNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // Primero se descartan los expirados; si sigue lleno se libera una décima parte. Un solo hilo desaloja
+    // a la vez: si varios lo hicieran juntos, cada uno liberaría su décima parte. Los demás siguen sin esperar.
+    private void evict(long now) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            cache.values().removeIf(entry -> entry.expiresAt <= now);
+            int toRemove = cache.size() - cacheMaxSize + Math.max(1, cacheMaxSize / 10);
+            Iterator<String> keys = cache.keySet().iterator();
+            while (toRemove-- > 0 && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class CachedClaims {
+        private final Claims claims;
+        private final long expiresAt;
+
+        private CachedClaims(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
     }
 }
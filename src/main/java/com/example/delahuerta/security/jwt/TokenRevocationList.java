@@ -0,0 +1,211 @@
+package com.example.delahuerta.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Tokens revocados (por "jti") y cortes por usuario ("not before"), persistidos en revoked_token y
+// user_token_cutoff pero consultados siempre en memoria. El camino común (token no revocado) es un
+// filtro de Bloom que responde "no" sin tocar el mapa; solo un positivo se confirma contra el conjunto
+// exacto. Las escrituras son raras y van bajo un lock; las lecturas no bloquean.
+//
+// Cada refreshIntervalMs se borran de la base las filas vencidas y se reconstruye todo desde ahí: así se
+// podan las entradas de tokens ya expirados y se ven las revocaciones hechas por otras instancias.
+@Component
+public class TokenRevocationList implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final long maxTokenAgeMs;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile State state;
+    private volatile LocalDateTime lastReload;
+
+    public TokenRevocationList(JdbcTemplate jdbcTemplate, JwtUtils jwtUtils,
+                               @Value("${delahuerta.jwt.revocation.enabled:true}") boolean enabled,
+                               @Value("${delahuerta.jwt.revocation.expected-insertions:100000}") int expectedInsertions,
+                               @Value("${delahuerta.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${delahuerta.jwt.revocation.max-token-age:24h}") Duration maxTokenAge) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        // Un corte tiene que durar lo que el token más largo que pueda seguir en circulación, no lo que
+        // dura uno nuevo: antes de access-token-ttl los tokens se emitían por 24 h y sin "jti"
+        this.maxTokenAgeMs = Math.max(jwtUtils.getExpirationMs(), maxTokenAge.toMillis());
+        this.state = build(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    // true si el token fue revocado o se emitió antes del corte de su usuario
+    public boolean isRevoked(Claims claims) {
+        if (!enabled) {
+            return false;
+        }
+        checks.increment();
+        State current = state;
+        String jti = claims.getId();
+        if (jti != null && current.filter.mightContain(jti)) {
+            if (current.tokens.containsKey(jti)) {
+                rejected.increment();
+                return true;
+            }
+            falsePositives.increment();
+        }
+        if (!current.cutoffs.isEmpty() && claims.getSubject() != null) {
+            Long notBefore = current.cutoffs.get(claims.getSubject());
+            Date issuedAt = claims.getIssuedAt();
+            if (notBefore != null && (issuedAt == null || issuedAt.getTime() < notBefore)) {
+                rejected.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void revoke(String jti, Date expiresAt) {
+        long expires = expiresAt != null ? expiresAt.getTime() : System.currentTimeMillis() + maxTokenAgeMs;
+        writeLock.lock();
+        try {
+            try {
+                jdbcTemplate.update("INSERT INTO revoked_token (jti, expires_at) VALUES (?, ?)",
+                        jti, new Timestamp(expires));
+            } catch (DuplicateKeyException ex) {
+                // ya estaba revocado
+            }
+            State current = state;
+            current.tokens.put(jti, expires);
+            current.filter.add(jti);
+            if (current.tokens.size() > current.capacity) {
+                state = build(current.tokens, current.cutoffs);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Invalida todos los tokens del usuario emitidos hasta ahora. El "iat" del JWT tiene precisión de
+    // segundos: el corte se redondea hacia arriba para que un token emitido antes en el mismo segundo no
+    // siga valiendo. Un login en ese mismo segundo también queda cortado y hay que repetirlo.
+    public void revokeAll(String username) {
+        long notBefore = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        Timestamp expires = new Timestamp(notBefore + maxTokenAgeMs);
+        writeLock.lock();
+        try {
+            int updated = jdbcTemplate.update(
+                    "UPDATE user_token_cutoff SET not_before = ?, expires_at = ? WHERE username = ?",
+                    new Timestamp(notBefore), expires, username);
+            if (updated == 0) {
+                jdbcTemplate.update(
+                        "INSERT INTO user_token_cutoff (username, not_before, expires_at) VALUES (?, ?, ?)",
+                        username, new Timestamp(notBefore), expires);
+            }
+            state.cutoffs.merge(username, notBefore, Math::max);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${delahuerta.jwt.revocation.refresh-interval-ms:60000}",
+               initialDelayString = "${delahuerta.jwt.revocation.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reload();
+        } catch (DataAccessException ex) {
+            logger.warn("No se pudo recargar la lista de tokens revocados: {}", ex.getMessage());
+        }
+    }
+
+    private void reload() {
+        writeLock.lock();
+        try {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            jdbcTemplate.update("DELETE FROM revoked_token WHERE expires_at < ?", now);
+            jdbcTemplate.update("DELETE FROM user_token_cutoff WHERE expires_at < ?", now);
+
+            Map<String, Long> tokens = new ConcurrentHashMap<>();
+            jdbcTemplate.query("SELECT jti, expires_at FROM revoked_token",
+                    rs -> { tokens.put(rs.getString(1), rs.getTimestamp(2).getTime()); });
+            Map<String, Long> cutoffs = new ConcurrentHashMap<>();
+            jdbcTemplate.query("SELECT username, not_before FROM user_token_cutoff",
+                    rs -> { cutoffs.put(rs.getString(1), rs.getTimestamp(2).getTime()); });
+
+            state = build(tokens, cutoffs);
+            lastReload = LocalDateTime.now();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // El filtro se dimensiona con margen para que las revocaciones hasta la próxima recarga no lo saturen
+    private State build(Map<String, Long> tokens, Map<String, Long> cutoffs) {
+        int capacity = Math.max(expectedInsertions, tokens.size() * 2);
+        BloomFilter filter = new BloomFilter(capacity, falsePositiveRate);
+        tokens.keySet().forEach(filter::add);
+        return new State(filter, tokens, cutoffs, capacity);
+    }
+
+    public Map<String, Object> stats() {
+        State current = state;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("revokedTokens", current.tokens.size());
+        stats.put("userCutoffs", current.cutoffs.size());
+        stats.put("bloomBits", current.filter.bitSize());
+        stats.put("bloomHashes", current.filter.hashCount());
+        stats.put("checks", checks.sum());
+        stats.put("bloomFalsePositives", falsePositives.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("lastReload", lastReload);
+        return stats;
+    }
+
+    private static final class State {
+        private final BloomFilter filter;
+        private final Map<String, Long> tokens;
+        private final Map<String, Long> cutoffs;
+        private final int capacity;
+
+        private State(BloomFilter filter, Map<String, Long> tokens, Map<String, Long> cutoffs, int capacity) {
+            this.filter = filter;
+            this.tokens = tokens;
+            this.cutoffs = cutoffs;
+            this.capacity = capacity;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.delahuerta.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket sin locks, implementado como GCRA: un único "tiempo teórico de llegada"
+// en un AtomicLong. Equivale a un bucket de capacidad burstNanos / nanosPerToken.
+public final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(long nanosPerToken, long burstNanos, long now) {
+        this.nanosPerToken = nanosPerToken;
+        this.burstNanos = burstNanos;
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    // Devuelve 0 si se consumió un token, o los nanosegundos que faltan para el siguiente
+    public long tryAcquire(long now) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now) + nanosPerToken;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Un bucket lleno no aporta información y se puede descartar
+    public boolean isFull(long now) {
+        return theoreticalArrival.get() <= now;
+    }
+}
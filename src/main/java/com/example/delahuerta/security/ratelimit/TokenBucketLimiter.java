@@ -0,0 +1,47 @@
+package com.example.delahuerta.security.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Un TokenBucket por clave (IP, usuario...) con memoria acotada
+public class TokenBucketLimiter {
+
+    private static final String OVERFLOW_KEY = "*";
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final int maxKeys;
+
+    public TokenBucketLimiter(int capacity, int refillPerMinute, int maxKeys) {
+        this.nanosPerToken = TimeUnit.MINUTES.toNanos(1) / Math.max(1, refillPerMinute);
+        this.burstNanos = nanosPerToken * Math.max(1, capacity);
+        this.maxKeys = maxKeys;
+    }
+
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                evictIdle();
+            }
+            // si aun así no hay espacio, las claves nuevas comparten un bucket común
+            String effectiveKey = buckets.size() >= maxKeys ? OVERFLOW_KEY : key;
+            bucket = buckets.computeIfAbsent(effectiveKey, k -> new TokenBucket(nanosPerToken, burstNanos, now));
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
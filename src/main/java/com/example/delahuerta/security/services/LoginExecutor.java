@@ -0,0 +1,89 @@
+package com.example.delahuerta.security.services;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Pool acotado para el trabajo de BCrypt del login, separado de los hilos de Tomcat
+@Component
+public class LoginExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor pool;
+    private final int queueCapacity;
+    private final long retryAfterSeconds;
+    private final LongAdder rejected = new LongAdder();
+
+    public LoginExecutor(@Value("${delahuerta.login.executor.threads:0}") int threads,
+                         @Value("${delahuerta.login.executor.queue-capacity:100}") int queueCapacity,
+                         @Value("${delahuerta.login.executor.retry-after-seconds:2}") long retryAfterSeconds) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+        this.retryAfterSeconds = retryAfterSeconds;
+        // queue-capacity=0: sin espera, se rechaza en cuanto todos los hilos están ocupados
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        this.pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                queue, new NamedThreadFactory("login-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Lanza RejectedExecutionException de inmediato si la cola está llena
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, pool);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw ex;
+        }
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", pool.getMaximumPoolSize());
+        stats.put("active", pool.getActiveCount());
+        stats.put("queued", pool.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", pool.getCompletedTaskCount());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
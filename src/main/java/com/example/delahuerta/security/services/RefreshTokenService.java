@@ -0,0 +1,229 @@
+package com.example.delahuerta.security.services;
+
+import com.example.delahuerta.security.jwt.JwtUtils;
+import com.example.delahuerta.security.jwt.TokenRevocationList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+// Refresh tokens opacos y rotativos. Renovar cuesta un SHA-256 y una búsqueda por clave primaria, no un
+// BCrypt: el cliente vuelve a /api/login solo cuando pierde el refresh token o este vence.
+//
+// Cada token sirve una sola vez. Si un token ya usado vuelve a aparecer, alguien más lo tiene: se revoca
+// toda la familia (los refresh tokens y los tokens de acceso todavía vigentes que salieron de ella).
+// Dos renovaciones simultáneas con el mismo token cuentan como reuso.
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JwtUtils jwtUtils;
+    private final TokenRevocationList revocationList;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final long refreshTtlMs;
+    private final SecureRandom random = new SecureRandom();
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder refreshed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder reuseDetected = new LongAdder();
+    private final LongAdder familiesRevoked = new LongAdder();
+
+    public RefreshTokenService(JdbcTemplate jdbcTemplate, JwtUtils jwtUtils,
+                               TokenRevocationList revocationList, UserDetailsServiceImpl userDetailsService,
+                               @Value("${delahuerta.jwt.refresh-token-ttl:30d}") Duration refreshTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jwtUtils = jwtUtils;
+        this.revocationList = revocationList;
+        this.userDetailsService = userDetailsService;
+        this.refreshTtlMs = refreshTtl.toMillis();
+    }
+
+    // Tras un login con contraseña: abre una familia nueva
+    @Transactional
+    public TokenPair issue(UserDetails user) {
+        issued.increment();
+        return newPair(user, UUID.randomUUID().toString());
+    }
+
+    // Devuelve null si el token no existe, venció, fue revocado o ya se había usado
+    @Transactional
+    public TokenPair rotate(String refreshToken) {
+        List<StoredToken> rows = jdbcTemplate.query(
+                "SELECT family_id, username, expires_at, used_at, revoked_at FROM refresh_token"
+                + " WHERE token_hash = ? FOR UPDATE",
+                (rs, rowNum) -> new StoredToken(rs.getString(1), rs.getString(2), rs.getTimestamp(3),
+                        rs.getTimestamp(4), rs.getTimestamp(5)),
+                hash(refreshToken));
+        if (rows.isEmpty()) {
+            rejected.increment();
+            return null;
+        }
+        StoredToken stored = rows.get(0);
+        long now = System.currentTimeMillis();
+        if (stored.revokedAt != null || stored.expiresAt.getTime() <= now) {
+            rejected.increment();
+            return null;
+        }
+        if (stored.usedAt != null) {
+            reuseDetected.increment();
+            logger.warn("Refresh token reutilizado para {}: se revoca la familia {}", stored.username, stored.familyId);
+            revokeFamily(stored.familyId);
+            return null;
+        }
+
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(stored.username);
+        } catch (UsernameNotFoundException ex) {
+            rejected.increment();
+            revokeFamily(stored.familyId);
+            return null;
+        }
+        jdbcTemplate.update("UPDATE refresh_token SET used_at = ? WHERE token_hash = ?",
+                new Timestamp(now), hash(refreshToken));
+        refreshed.increment();
+        return newPair(user, stored.familyId);
+    }
+
+    // Logout: corta la familia del token presentado (si existe)
+    @Transactional
+    public void revoke(String refreshToken) {
+        List<String> families = jdbcTemplate.queryForList(
+                "SELECT family_id FROM refresh_token WHERE token_hash = ?", String.class, hash(refreshToken));
+        families.forEach(this::revokeFamily);
+    }
+
+    // Todas las familias del usuario; sus tokens de acceso los corta TokenRevocationList.revokeAll
+    @Transactional
+    public void revokeAll(String username) {
+        jdbcTemplate.update("UPDATE refresh_token SET revoked_at = ? WHERE username = ? AND revoked_at IS NULL",
+                new Timestamp(System.currentTimeMillis()), username);
+    }
+
+    // Las filas vencidas ya no sirven ni para detectar reuso
+    @Scheduled(fixedDelayString = "${delahuerta.jwt.refresh-token.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = jdbcTemplate.update("DELETE FROM refresh_token WHERE expires_at < ?",
+                new Timestamp(System.currentTimeMillis()));
+        if (deleted > 0) {
+            logger.debug("{} refresh tokens vencidos eliminados", deleted);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("accessTokenTtlSeconds", jwtUtils.getExpirationMs() / 1000);
+        stats.put("refreshTokenTtlSeconds", refreshTtlMs / 1000);
+        stats.put("issued", issued.sum());
+        stats.put("refreshed", refreshed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("reuseDetected", reuseDetected.sum());
+        stats.put("familiesRevoked", familiesRevoked.sum());
+        return stats;
+    }
+
+    private TokenPair newPair(UserDetails user, String familyId) {
+        String jti = UUID.randomUUID().toString();
+        String accessToken = jwtUtils.generateToken(user, jti);
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update("INSERT INTO refresh_token (token_hash, family_id, username, access_jti, created_at, expires_at)"
+                        + " VALUES (?, ?, ?, ?, ?, ?)",
+                hash(refreshToken), familyId, user.getUsername(), jti, new Timestamp(now),
+                new Timestamp(now + refreshTtlMs));
+        return new TokenPair(user, accessToken, refreshToken);
+    }
+
+    private void revokeFamily(String familyId) {
+        long now = System.currentTimeMillis();
+        long accessTtlMs = jwtUtils.getExpirationMs();
+        List<Map<String, Object>> issuedAccess = jdbcTemplate.queryForList(
+                "SELECT access_jti, created_at FROM refresh_token"
+                + " WHERE family_id = ? AND access_jti IS NOT NULL AND revoked_at IS NULL", familyId);
+        for (Map<String, Object> row : issuedAccess) {
+            long expiresAt = ((Timestamp) row.get("created_at")).getTime() + accessTtlMs;
+            if (expiresAt > now) {
+                revocationList.revoke((String) row.get("access_jti"), new Date(expiresAt));
+            }
+        }
+        jdbcTemplate.update("UPDATE refresh_token SET revoked_at = ? WHERE family_id = ? AND revoked_at IS NULL",
+                new Timestamp(now), familyId);
+        familiesRevoked.increment();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public static final class TokenPair {
+        private final UserDetails user;
+        private final String accessToken;
+        private final String refreshToken;
+
+        private TokenPair(UserDetails user, String accessToken, String refreshToken) {
+            this.user = user;
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+        }
+
+        public UserDetails getUser() {
+            return user;
+        }
+
+        public String getAccessToken() {
+            return accessToken;
+        }
+
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+    }
+
+    private static final class StoredToken {
+        private final String familyId;
+        private final String username;
+        private final Timestamp expiresAt;
+        private final Timestamp usedAt;
+        private final Timestamp revokedAt;
+
+        private StoredToken(String familyId, String username, Timestamp expiresAt,
+                            Timestamp usedAt, Timestamp revokedAt) {
+            this.familyId = familyId;
+            this.username = username;
+            this.expiresAt = expiresAt;
+            this.usedAt = usedAt;
+            this.revokedAt = revokedAt;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.delahuerta.security.services;
+
+import com.example.delahuerta.model.User;
+import com.example.delahuerta.repository.UserRepository;
+import com.example.delahuerta.service.UserChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Búsquedas de usuarios por nombre para UserDetailsServiceImpl (filtro JWT y login) cuando no están en
+// UserDetailsCache. En un pico llegan cientos de búsquedas a la vez, muchas del mismo usuario:
+//
+//  - single-flight: las peticiones concurrentes por el mismo nombre esperan la misma búsqueda en curso
+//  - micro-lotes: un despachador junta durante window-micros los nombres distintos pendientes y los
+//    resuelve con un solo "WHERE username IN (...)"
+//
+// El hilo de la petición sigue bloqueándose hasta tener el resultado: el contrato de UserDetailsService
+// no cambia. Sin despachadores en marcha (deshabilitado, arranque o apagado) se consulta directamente.
+// También dentro de una transacción (RefreshTokenService.rotate): quien llama ya tiene una conexión y un
+// bloqueo de fila, y esperar a un despachador que necesita otra conexión del pool puede agotarlo.
+@Component
+public class UserBatchLoader implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserBatchLoader.class);
+
+    private final UserRepository userRepo;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final int threads;
+
+    private final Map<String, CompletableFuture<Optional<User>>> inFlight = new ConcurrentHashMap<>();
+    private final BlockingQueue<Lookup> pending = new LinkedBlockingQueue<>();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder direct = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedUsernames = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private volatile boolean running;
+    private final List<Thread> workers = new ArrayList<>();
+
+    public UserBatchLoader(UserRepository userRepo,
+                           @Value("${delahuerta.security.user-loader.enabled:true}") boolean enabled,
+                           @Value("${delahuerta.security.user-loader.window-micros:200}") long windowMicros,
+                           @Value("${delahuerta.security.user-loader.max-batch:100}") int maxBatch,
+                           @Value("${delahuerta.security.user-loader.threads:2}") int threads) {
+        this.userRepo = userRepo;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.threads = Math.max(1, threads);
+    }
+
+    public Optional<User> findByUsername(String username) {
+        lookups.increment();
+        if (!running || TransactionSynchronizationManager.isActualTransactionActive()) {
+            direct.increment();
+            return userRepo.findByUsername(username);
+        }
+
+        CompletableFuture<Optional<User>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<User>> future = inFlight.putIfAbsent(username, created);
+        if (future == null) {
+            future = created;
+            pending.add(new Lookup(username, created));
+            // stop() pudo vaciar la cola justo antes: nadie más va a resolver esta búsqueda
+            if (!running) {
+                drainPending();
+            }
+        } else {
+            joined.increment();
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    // Una búsqueda que empezó antes del cambio no debe servir a quien llega después
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.isRemote() && event.getUsernames().isEmpty()) {
+            inFlight.clear();
+        } else {
+            event.getUsernames().forEach(inFlight::remove);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long batchCount = batches.sum();
+        long batched = batchedUsernames.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("running", running);
+        stats.put("windowMicros", TimeUnit.NANOSECONDS.toMicros(windowNanos));
+        stats.put("maxBatch", maxBatch);
+        stats.put("lookups", lookups.sum());
+        stats.put("joinedInFlight", joined.sum());
+        stats.put("direct", direct.sum());
+        stats.put("batches", batchCount);
+        stats.put("avgBatchSize", batchCount == 0 ? 0.0 : (double) batched / batchCount);
+        stats.put("pending", pending.size());
+        stats.put("failures", failures.sum());
+        return stats;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::dispatchLoop, "user-loader-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(1000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+        drainPending();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Arranca antes y se detiene después del servidor web, como RequestLogWriter
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void dispatchLoop() {
+        List<Lookup> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Lookup first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                execute(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                logger.warn("Error inesperado en el cargador de usuarios", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Espera a lo sumo windowNanos desde la primera búsqueda, o hasta completar maxBatch
+    private void collect(List<Lookup> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatch) {
+            pending.drainTo(batch, maxBatch - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatch || remaining <= 0) {
+                return;
+            }
+            Lookup next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void drainPending() {
+        List<Lookup> batch = new ArrayList<>(maxBatch);
+        while (pending.drainTo(batch, maxBatch) > 0) {
+            execute(batch);
+            batch.clear();
+        }
+    }
+
+    private void execute(List<Lookup> batch) {
+        batches.increment();
+        batchedUsernames.add(batch.size());
+        List<User> users;
+        try {
+            if (batch.size() == 1) {
+                users = userRepo.findByUsername(batch.get(0).username).map(List::of).orElse(List.of());
+            } else {
+                List<String> usernames = new ArrayList<>(batch.size());
+                batch.forEach(lookup -> usernames.add(lookup.username));
+                users = userRepo.findByUsernameIn(usernames);
+            }
+        } catch (RuntimeException ex) {
+            failures.increment();
+            for (Lookup lookup : batch) {
+                inFlight.remove(lookup.username, lookup.future);
+                lookup.future.completeExceptionally(ex);
+            }
+            return;
+        }
+
+        // La colación de MySQL no distingue mayúsculas: "Alice" encuentra a "alice", igual que antes
+        Map<String, User> exact = new HashMap<>();
+        Map<String, User> folded = new HashMap<>();
+        for (User user : users) {
+            exact.put(user.getUsername(), user);
+            folded.putIfAbsent(user.getUsername().toLowerCase(Locale.ROOT), user);
+        }
+        for (Lookup lookup : batch) {
+            User user = exact.get(lookup.username);
+            if (user == null) {
+                user = folded.get(lookup.username.toLowerCase(Locale.ROOT));
+            }
+            inFlight.remove(lookup.username, lookup.future);
+            lookup.future.complete(Optional.ofNullable(user));
+        }
+    }
+
+    private static final class Lookup {
+        private final String username;
+        private final CompletableFuture<Optional<User>> future;
+
+        private Lookup(String username, CompletableFuture<Optional<User>> future) {
+            this.username = username;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.delahuerta.security.services;
+
+import com.example.delahuerta.service.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class UserDetailsCache {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlMs;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // LRU: LinkedHashMap en orden de acceso que descarta la entrada más antigua al llenarse
+    private final LinkedHashMap<String, Entry> entries;
+
+    public UserDetailsCache(@Value("${delahuerta.security.user-cache.enabled:true}") boolean enabled,
+                            @Value("${delahuerta.security.user-cache.max-size:10000}") int maxSize,
+                            @Value("${delahuerta.security.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlMs = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > UserDetailsCache.this.maxSize;
+            }
+        };
+    }
+
+    // Devuelve una copia: Spring Security borra la contraseña del principal tras autenticar
+    public UserDetails get(String username) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry;
+        lock.lock();
+        try {
+            entry = entries.get(username);
+            if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(username);
+                entry = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return User.withUserDetails(entry.userDetails).build();
+    }
+
+    public void put(UserDetails userDetails) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = new Entry(userDetails, System.currentTimeMillis() + ttlMs);
+        lock.lock();
+        try {
+            entries.put(userDetails.getUsername(), entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(String username) {
+        lock.lock();
+        try {
+            entries.remove(username);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        event.getUsernames().forEach(this::invalidate);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        lock.lock();
+        try {
+            stats.put("size", entries.size());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+
+    private static final class Entry {
+        private final UserDetails userDetails;
+        private final long expiresAt;
+
+        private Entry(UserDetails userDetails, long expiresAt) {
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
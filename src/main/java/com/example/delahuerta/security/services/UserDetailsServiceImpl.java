@@ -1,7 +1,7 @@
 package com.example.delahuerta.security.services;
 
 import com.example.delahuerta.model.User;
-import com.example.delahuerta.repository.UserRepository;
+import com.example.delahuerta.profiling.UserLookupEvent;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -12,21 +12,44 @@ import java.util.List;
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
-    private final UserRepository userRepo;
+    private final UserBatchLoader userLoader;
+    private final UserDetailsCache userCache;
 
-    public UserDetailsServiceImpl(UserRepository userRepo) {
-        this.userRepo = userRepo;
+    public UserDetailsServiceImpl(UserBatchLoader userLoader, UserDetailsCache userCache) {
+        this.userLoader = userLoader;
+        this.userCache = userCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User u = userRepo.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+        UserLookupEvent event = new UserLookupEvent();
+        event.begin();
+        UserDetails cached = userCache.get(username);
+        if (cached != null) {
+            commit(event, username, true, true);
+            return cached;
+        }
+
+        User u = userLoader.findByUsername(username).orElse(null);
+        commit(event, username, false, u != null);
+        if (u == null) {
+            throw new UsernameNotFoundException("Usuario no encontrado: " + username);
+        }
 
         // MUY IMPORTANTE: prefijo ROLE_
         List<GrantedAuthority> auths = List.of(new SimpleGrantedAuthority("ROLE_" + u.getRole()));
-        return new org.springframework.security.core.userdetails.User(u.getUsername(), u.getPassword(), auths);
+        UserDetails details = new org.springframework.security.core.userdetails.User(u.getUsername(), u.getPassword(), auths);
+        userCache.put(details);
+        return org.springframework.security.core.userdetails.User.withUserDetails(details).build();
     }
-}
-
 
+    private static void commit(UserLookupEvent event, String username, boolean cacheHit, boolean found) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.username = username;
+            event.cacheHit = cacheHit;
+            event.found = found;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.delahuerta.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+// Conteos agrupados calculados en SQL sobre los índices de request_log; nunca carga entidades.
+// "count" suma sample_weight (estimación de las peticiones reales con muestreo); "sampledRows" son las filas.
+@Service
+public class RequestLogAnalyticsService {
+
+    public enum Dimension {
+        PATH("r.path"), METHOD("r.method"), IP("r.ip");
+
+        private final String expression;
+
+        Dimension(String expression) {
+            this.expression = expression;
+        }
+    }
+
+    public enum Bucket {
+        MINUTE("truncate(r.timestamp, minute)"),
+        HOUR("truncate(r.timestamp, hour)"),
+        DAY("truncate(r.timestamp, day)");
+
+        private final String expression;
+
+        Bucket(String expression) {
+            this.expression = expression;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Las partes dinámicas de la consulta salen solo de los enums, nunca del usuario
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> countRequests(Dimension dimension, Bucket bucket,
+                                                   LocalDateTime from, LocalDateTime to, int limit) {
+        if (dimension == null && bucket == null) {
+            throw new IllegalArgumentException("Se requiere groupBy o bucket");
+        }
+
+        List<String> groups = new ArrayList<>();
+        if (bucket != null) {
+            groups.add(bucket.expression);
+        }
+        if (dimension != null) {
+            groups.add(dimension.expression);
+        }
+        String grouped = String.join(", ", groups);
+        String order = bucket != null ? bucket.expression + ", sum(r.sampleWeight) desc" : "sum(r.sampleWeight) desc";
+
+        String hql = "select " + grouped + ", sum(r.sampleWeight), count(r) from RequestLog r"
+                + " where r.timestamp >= :from and r.timestamp < :to"
+                + " group by " + grouped
+                + " order by " + order;
+
+        List<Object[]> rows = entityManager.createQuery(hql, Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setMaxResults(limit)
+                .getResultList();
+
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            int i = 0;
+            if (bucket != null) {
+                item.put("bucket", row[i++]);
+            }
+            if (dimension != null) {
+                item.put(dimension.name().toLowerCase(), row[i++]);
+            }
+            item.put("count", row[i++]);
+            item.put("sampledRows", row[i]);
+            result.add(item);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.delahuerta.service;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.delahuerta.model.RequestLog;
+import com.example.delahuerta.repository.RequestLogRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+// Recorre request_log con memoria constante: cursor de la base de datos y cada entidad se desprende al procesarla
+@Service
+public class RequestLogExportService {
+
+    private final RequestLogRepository requestLogRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public RequestLogExportService(RequestLogRepository requestLogRepository) {
+        this.requestLogRepository = requestLogRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachLog(LocalDateTime from, LocalDateTime to, String method, Consumer<RequestLog> consumer) {
+        try (Stream<RequestLog> logs = method != null
+                ? requestLogRepository.streamByMethodAndTimestamp(method, from, to)
+                : requestLogRepository.streamByTimestamp(from, to)) {
+            logs.forEach(log -> {
+                consumer.accept(log);
+                entityManager.detach(log);
+            });
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.delahuerta.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+// Decide, al terminar cada petición, si su RequestLog se guarda y cuántas peticiones representa. Las reglas
+// se evalúan en orden y gana la primera cuyo método y patrón (Ant, sobre la URI) coinciden:
+//
+//   always   se guardan todas, con peso 1
+//   never    no se guarda ninguna
+//   rate:N   una de cada N al azar, con peso N
+//   tail:N   las lentas (>= slow-ms) o con error (status >= error-status) siempre, con peso 1; del resto
+//            una de cada N con peso N (tail:0 descarta el resto)
+//
+// Con esos pesos, sumar sample_weight estima sin sesgo cuántas peticiones hubo. Una regla se escribe
+// "[MÉTODO ]patrón=política", p. ej. "OPTIONS /**=never" o "GET /api/user/**=tail:10".
+@Component
+public class RequestLogSampler {
+
+    public enum Mode { ALWAYS, NEVER, RATE, TAIL }
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final Rule fallback;
+    private final long slowMs;
+    private final int errorStatus;
+
+    public RequestLogSampler(@Value("${delahuerta.request-log.sampling.rules:}") String[] rules,
+                             @Value("${delahuerta.request-log.sampling.default:always}") String defaultPolicy,
+                             @Value("${delahuerta.request-log.sampling.tail.slow-ms:1000}") long slowMs,
+                             @Value("${delahuerta.request-log.sampling.tail.error-status:400}") int errorStatus) {
+        for (String rule : rules) {
+            if (!rule.isBlank()) {
+                this.rules.add(parse(rule.trim()));
+            }
+        }
+        this.fallback = policy(null, "/**", defaultPolicy.trim());
+        this.slowMs = slowMs;
+        this.errorStatus = errorStatus;
+    }
+
+    // Peso con el que se guarda la fila, o 0 si no se guarda
+    public int weight(String method, String path, Integer status, Long durationMs) {
+        Rule rule = match(method, path);
+        int weight = switch (rule.mode) {
+            case ALWAYS -> 1;
+            case NEVER -> 0;
+            case RATE -> sample(rule.oneIn);
+            case TAIL -> isTail(status, durationMs) ? 1 : sample(rule.oneIn);
+        };
+        (weight > 0 ? rule.kept : rule.dropped).increment();
+        return weight;
+    }
+
+    public Map<String, Object> stats() {
+        List<Map<String, Object>> perRule = new ArrayList<>(rules.size() + 1);
+        for (Rule rule : rules) {
+            perRule.add(rule.stats());
+        }
+        perRule.add(fallback.stats());
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tailSlowMs", slowMs);
+        stats.put("tailErrorStatus", errorStatus);
+        stats.put("rules", perRule);
+        return stats;
+    }
+
+    private Rule match(String method, String path) {
+        for (Rule rule : rules) {
+            if ((rule.method == null || rule.method.equals(method)) && path != null && PATHS.match(rule.pattern, path)) {
+                return rule;
+            }
+        }
+        return fallback;
+    }
+
+    private boolean isTail(Integer status, Long durationMs) {
+        return (status != null && status >= errorStatus) || (durationMs != null && durationMs >= slowMs);
+    }
+
+    private static int sample(int oneIn) {
+        if (oneIn <= 0) {
+            return 0;
+        }
+        return ThreadLocalRandom.current().nextInt(oneIn) == 0 ? oneIn : 0;
+    }
+
+    private static Rule parse(String rule) {
+        int equals = rule.lastIndexOf('=');
+        if (equals < 0) {
+            throw new IllegalArgumentException("Regla de muestreo sin política: " + rule);
+        }
+        String target = rule.substring(0, equals).trim();
+        int space = target.indexOf(' ');
+        String method = space > 0 ? target.substring(0, space).toUpperCase(Locale.ROOT) : null;
+        String pattern = space > 0 ? target.substring(space + 1).trim() : target;
+        return policy("*".equals(method) ? null : method, pattern, rule.substring(equals + 1).trim());
+    }
+
+    private static Rule policy(String method, String pattern, String policy) {
+        String[] parts = policy.split(":", 2);
+        Mode mode;
+        try {
+            mode = Mode.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Política de muestreo desconocida: " + policy);
+        }
+        int oneIn = 1;
+        if (mode == Mode.RATE || mode == Mode.TAIL) {
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("La política " + parts[0] + " requiere N (\"" + parts[0] + ":N\")");
+            }
+            oneIn = Integer.parseInt(parts[1].trim());
+            if (oneIn < 0 || (mode == Mode.RATE && oneIn == 0)) {
+                throw new IllegalArgumentException("N inválido en la política de muestreo: " + policy);
+            }
+        }
+        return new Rule(method, pattern, mode, oneIn, policy);
+    }
+
+    private static final class Rule {
+        private final String method;
+        private final String pattern;
+        private final Mode mode;
+        private final int oneIn;
+        private final String policy;
+        private final LongAdder kept = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        private Rule(String method, String pattern, Mode mode, int oneIn, String policy) {
+            this.method = method;
+            this.pattern = pattern;
+            this.mode = mode;
+            this.oneIn = oneIn;
+            this.policy = policy;
+        }
+
+        private Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("method", method != null ? method : "*");
+            stats.put("pattern", pattern);
+            stats.put("policy", policy);
+            stats.put("kept", kept.sum());
+            stats.put("dropped", dropped.sum());
+            return stats;
+        }
+    }
+}
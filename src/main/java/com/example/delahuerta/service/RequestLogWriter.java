@@ -0,0 +1,379 @@
+package com.example.delahuerta.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.delahuerta.model.RequestLog;
+import com.example.delahuerta.profiling.RequestLogInsertEvent;
+
+@Service
+public class RequestLogWriter implements SmartLifecycle {
+
+    public enum OverflowPolicy { DROP, BLOCK, SPILL }
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestLogWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO request_log (method, path, ip, timestamp, duration_ms, status, response_bytes, sample_weight)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<RequestLog> queue;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final boolean flushOnShutdown;
+    private final long shutdownTimeoutMs;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final Path replayCheckpoint;
+
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder corruptSpillLines = new LongAdder();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public RequestLogWriter(JdbcTemplate jdbcTemplate,
+                            @Value("${delahuerta.request-log.queue-capacity:10000}") int queueCapacity,
+                            @Value("${delahuerta.request-log.batch-size:500}") int batchSize,
+                            @Value("${delahuerta.request-log.flush-interval-ms:200}") long flushIntervalMs,
+                            @Value("${delahuerta.request-log.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+                            @Value("${delahuerta.request-log.block-timeout-ms:50}") long blockTimeoutMs,
+                            @Value("${delahuerta.request-log.flush-on-shutdown:true}") boolean flushOnShutdown,
+                            @Value("${delahuerta.request-log.shutdown-timeout-ms:5000}") long shutdownTimeoutMs,
+                            @Value("${delahuerta.request-log.spill-file:${java.io.tmpdir}/delahuerta/request-log.spill}") String spillFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.flushOnShutdown = flushOnShutdown;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.spillFile = Paths.get(spillFile);
+        this.replayFile = Paths.get(spillFile + ".replay");
+        this.replayCheckpoint = Paths.get(spillFile + ".replay.offset");
+    }
+
+    // Llamado desde el hilo de la petición: nunca toca la base de datos
+    public void enqueue(RequestLog log) {
+        enqueued.increment();
+        if (queue.offer(log)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    if (queue.offer(log, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                dropped.increment();
+            }
+            case SPILL -> spill(List.of(log));
+            default -> dropped.increment();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("overflowPolicy", overflowPolicy.name());
+        stats.put("enqueued", enqueued.sum());
+        stats.put("written", written.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("spilled", spilled.sum());
+        stats.put("failed", failed.sum());
+        stats.put("corruptSpillLines", corruptSpillLines.sum());
+        return stats;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "request-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        try {
+            worker.join(shutdownTimeoutMs);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<RequestLog> batch = new ArrayList<>(batchSize);
+        while (flushOnShutdown && System.currentTimeMillis() < deadline && queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+
+        // Lo que no alcanzó a escribirse se guarda en disco o se descarta
+        queue.drainTo(batch);
+        if (!batch.isEmpty()) {
+            if (overflowPolicy == OverflowPolicy.SPILL) {
+                spill(batch);
+            } else {
+                dropped.add(batch.size());
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Arranca antes y se detiene después del servidor web, para no perder peticiones en curso
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<RequestLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                RequestLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    replaySpill();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                logger.warn("Error inesperado en el escritor de logs", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<RequestLog> batch) {
+        try {
+            insert(batch);
+        } catch (DataAccessException ex) {
+            logger.warn("No se pudieron guardar {} logs de peticiones: {}", batch.size(), ex.getMessage());
+            if (overflowPolicy == OverflowPolicy.SPILL) {
+                spill(batch);
+            } else {
+                failed.add(batch.size());
+            }
+        }
+    }
+
+    private void spill(List<RequestLog> logs) {
+        spillLock.lock();
+        try {
+            Files.createDirectories(spillFile.getParent());
+            try (BufferedWriter out = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (RequestLog log : logs) {
+                    out.write(encode(log));
+                    out.newLine();
+                }
+            }
+            spilled.add(logs.size());
+        } catch (IOException ex) {
+            logger.warn("No se pudo escribir en {}: {}", spillFile, ex.getMessage());
+            dropped.add(logs.size());
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    // Reinserta en la base de datos lo que se derramó a disco cuando la cola estaba llena. Tras cada lote
+    // guardado se anota en replayCheckpoint cuántas líneas ya se procesaron: si un INSERT falla a mitad de
+    // archivo, el siguiente ciclo ocioso sigue desde ahí en lugar de duplicar lo ya insertado. Las líneas
+    // que no se pueden leer (p. ej. la última a medio escribir tras una caída) se saltan y se cuentan.
+    private void replaySpill() {
+        try {
+            spillLock.lock();
+            try {
+                if (Files.notExists(replayFile)) {
+                    if (Files.notExists(spillFile)) {
+                        return;
+                    }
+                    // un checkpoint suelto es de un archivo anterior y no vale para este
+                    Files.deleteIfExists(replayCheckpoint);
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } finally {
+                spillLock.unlock();
+            }
+
+            long processed = readCheckpoint();
+            long lineNumber = 0;
+            long corrupt = 0;
+            List<RequestLog> batch = new ArrayList<>(batchSize);
+            try (BufferedReader in = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    lineNumber++;
+                    if (lineNumber <= processed) {
+                        continue;
+                    }
+                    RequestLog log;
+                    try {
+                        log = decode(line);
+                    } catch (RuntimeException ex) {
+                        log = null;
+                    }
+                    if (log != null) {
+                        batch.add(log);
+                    } else {
+                        if (corrupt++ == 0) {
+                            logger.warn("Línea {} ilegible en {}: se salta", lineNumber, replayFile);
+                        }
+                        corruptSpillLines.increment();
+                    }
+                    if (batch.size() == batchSize) {
+                        insert(batch);
+                        batch.clear();
+                        writeCheckpoint(lineNumber);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                insert(batch);
+            }
+            Files.delete(replayFile);
+            Files.deleteIfExists(replayCheckpoint);
+        } catch (IOException | DataAccessException ex) {
+            // se reintenta en el siguiente ciclo ocioso, desde el último checkpoint
+            logger.debug("No se pudo reprocesar {}: {}", replayFile, ex.getMessage());
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (Files.notExists(replayCheckpoint)) {
+            return 0;
+        }
+        String value = Files.readString(replayCheckpoint, StandardCharsets.UTF_8).trim();
+        try {
+            return value.isEmpty() ? 0 : Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            logger.warn("Checkpoint inválido en {}: se reprocesa {} desde el principio", replayCheckpoint, replayFile);
+            return 0;
+        }
+    }
+
+    // Se escribe aparte y se mueve de forma atómica: un corte a mitad de escritura no deja un número roto
+    private void writeCheckpoint(long lineNumber) throws IOException {
+        Path tmp = Paths.get(replayCheckpoint + ".tmp");
+        Files.writeString(tmp, Long.toString(lineNumber), StandardCharsets.UTF_8);
+        Files.move(tmp, replayCheckpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // con rewriteBatchedStatements=true el driver lo envía como un INSERT multi-fila
+    private void insert(List<RequestLog> batch) {
+        RequestLogInsertEvent event = new RequestLogInsertEvent();
+        event.begin();
+        event.rows = batch.size();
+        try {
+            batchInsert(batch);
+            event.succeeded = true;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private void batchInsert(List<RequestLog> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, log) -> {
+            ps.setString(1, log.getMethod());
+            ps.setString(2, log.getPath());
+            ps.setString(3, log.getIp());
+            ps.setTimestamp(4, log.getTimestamp() != null ? Timestamp.valueOf(log.getTimestamp()) : null);
+            ps.setObject(5, log.getDurationMs(), Types.BIGINT);
+            ps.setObject(6, log.getStatus(), Types.INTEGER);
+            ps.setObject(7, log.getResponseBytes(), Types.BIGINT);
+            ps.setInt(8, log.getSampleWeight());
+        });
+        written.add(batch.size());
+    }
+
+    private static String encode(RequestLog log) {
+        return String.join("\t",
+                clean(log.getMethod()),
+                clean(log.getPath()),
+                clean(log.getIp()),
+                log.getTimestamp() != null ? log.getTimestamp().toString() : "",
+                log.getDurationMs() != null ? log.getDurationMs().toString() : "",
+                log.getStatus() != null ? log.getStatus().toString() : "",
+                log.getResponseBytes() != null ? log.getResponseBytes().toString() : "",
+                String.valueOf(log.getSampleWeight()));
+    }
+
+    private static RequestLog decode(String line) {
+        String[] pieces = line.split("\t", -1);
+        if (pieces.length < 4) {
+            return null;
+        }
+        RequestLog log = new RequestLog();
+        log.setMethod(pieces[0]);
+        log.setPath(pieces[1]);
+        log.setIp(pieces[2]);
+        log.setTimestamp(pieces[3].isEmpty() ? null : LocalDateTime.parse(pieces[3]));
+        // las líneas de versiones anteriores solo traen los cuatro primeros campos
+        if (pieces.length >= 7) {
+            log.setDurationMs(pieces[4].isEmpty() ? null : Long.valueOf(pieces[4]));
+            log.setStatus(pieces[5].isEmpty() ? null : Integer.valueOf(pieces[5]));
+            log.setResponseBytes(pieces[6].isEmpty() ? null : Long.valueOf(pieces[6]));
+        }
+        if (pieces.length >= 8) {
+            log.setSampleWeight(Integer.parseInt(pieces[7]));
+        }
+        return log;
+    }
+
+    private static String clean(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
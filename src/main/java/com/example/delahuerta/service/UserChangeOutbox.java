@@ -0,0 +1,45 @@
+package com.example.delahuerta.service;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Escribe cada UserChangedEvent local en user_change antes del commit, dentro de la misma transacción
+// que el cambio: si el cambio se revierte, la fila también. Cada fila lleva el id de esta instancia para
+// que UserChangePoller no vuelva a aplicar aquí lo que ya se invalidó localmente.
+@Component
+public class UserChangeOutbox {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_change (username, origin, changed_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public UserChangeOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        List<String> usernames = event.getUsernames();
+        if (event.isRemote() || usernames.isEmpty()) {
+            return;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.batchUpdate(INSERT_SQL, usernames, usernames.size(), (ps, username) -> {
+            ps.setString(1, username);
+            ps.setString(2, nodeId);
+            ps.setTimestamp(3, now);
+        });
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
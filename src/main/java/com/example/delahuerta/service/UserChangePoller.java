@@ -0,0 +1,194 @@
+package com.example.delahuerta.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.delahuerta.security.services.UserDetailsCache;
+
+// Sigue el outbox user_change de las demás instancias y publica sus cambios como UserChangedEvent
+// remotos, que invalidan UserDetailsCache y la versión de los ETag igual que un cambio local.
+//
+// Cada consulta es "id > marca de agua" sobre la clave primaria. Un id de AUTO_INCREMENT se asigna antes
+// del commit, así que una fila puede aparecer después que otra con id mayor: los huecos que deja la marca
+// de agua se vuelven a consultar durante gapTimeout. Si el outbox no se puede leer por más de
+// maxStaleness se vacía la caché completa: nunca se sirve un rol más viejo que esa cota.
+@Component
+public class UserChangePoller implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserChangePoller.class);
+
+    private static final String POLL_SQL =
+            "SELECT id, username, origin FROM user_change WHERE id > ? ORDER BY id LIMIT ?";
+    // Más allá de esto no es una transacción en curso sino un salto del AUTO_INCREMENT
+    private static final int MAX_TRACKED_GAP = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserChangeOutbox outbox;
+    private final UserDetailsCache userDetailsCache;
+    private final ApplicationEventPublisher events;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long gapTimeoutMs;
+    private final long maxStalenessMs;
+    private final Duration retention;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // id faltante -> momento a partir del cual se deja de buscar
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder lateRows = new LongAdder();
+    private volatile long highWaterMark;
+    private volatile long lastSuccess = System.currentTimeMillis();
+
+    public UserChangePoller(JdbcTemplate jdbcTemplate, UserChangeOutbox outbox,
+                            UserDetailsCache userDetailsCache, ApplicationEventPublisher events,
+                            @Value("${delahuerta.users.change-feed.enabled:true}") boolean enabled,
+                            @Value("${delahuerta.users.change-feed.batch-size:1000}") int batchSize,
+                            @Value("${delahuerta.users.change-feed.gap-timeout-ms:60000}") long gapTimeoutMs,
+                            @Value("${delahuerta.users.change-feed.max-staleness-ms:30000}") long maxStalenessMs,
+                            @Value("${delahuerta.users.change-feed.retention:1d}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outbox = outbox;
+        this.userDetailsCache = userDetailsCache;
+        this.events = events;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.maxStalenessMs = maxStalenessMs;
+        this.retention = retention;
+    }
+
+    // Las cachés arrancan vacías: no hace falta repasar cambios anteriores al arranque
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM user_change", Long.class);
+            highWaterMark = max != null ? max : 0;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${delahuerta.users.change-feed.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled || !lock.tryLock()) {
+            return;
+        }
+        try {
+            pollOnce();
+            lastSuccess = System.currentTimeMillis();
+        } catch (DataAccessException ex) {
+            failures.increment();
+            logger.warn("No se pudo leer user_change: {}", ex.getMessage());
+            if (System.currentTimeMillis() - lastSuccess > maxStalenessMs) {
+                userDetailsCache.invalidateAll();
+                events.publishEvent(UserChangedEvent.remote(List.of()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${delahuerta.users.change-feed.prune-interval-ms:3600000}")
+    public void prune() {
+        if (enabled) {
+            jdbcTemplate.update("DELETE FROM user_change WHERE changed_at < ?",
+                    new Timestamp(System.currentTimeMillis() - retention.toMillis()));
+        }
+    }
+
+    private void pollOnce() {
+        polls.increment();
+        long now = System.currentTimeMillis();
+        Set<String> changed = new LinkedHashSet<>();
+
+        List<ChangeRow> rows = jdbcTemplate.query(POLL_SQL, (rs, rowNum) ->
+                new ChangeRow(rs.getLong(1), rs.getString(2), rs.getString(3)), highWaterMark, batchSize);
+        for (ChangeRow row : rows) {
+            long missing = row.id - highWaterMark - 1;
+            if (missing > 0 && missing <= MAX_TRACKED_GAP) {
+                for (long id = highWaterMark + 1; id < row.id; id++) {
+                    gaps.put(id, now + gapTimeoutMs);
+                }
+            }
+            highWaterMark = row.id;
+            collect(row, changed);
+        }
+
+        gaps.values().removeIf(deadline -> deadline <= now);
+        if (!gaps.isEmpty()) {
+            List<Long> pending = new ArrayList<>(gaps.keySet());
+            StringBuilder sql = new StringBuilder("SELECT id, username, origin FROM user_change WHERE id IN (");
+            for (int i = 0; i < pending.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            List<ChangeRow> late = jdbcTemplate.query(sql.append(')').toString(), (rs, rowNum) ->
+                    new ChangeRow(rs.getLong(1), rs.getString(2), rs.getString(3)), pending.toArray());
+            for (ChangeRow row : late) {
+                gaps.remove(row.id);
+                lateRows.increment();
+                collect(row, changed);
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            applied.add(changed.size());
+            events.publishEvent(UserChangedEvent.remote(new ArrayList<>(changed)));
+        }
+    }
+
+    private void collect(ChangeRow row, Set<String> changed) {
+        if (!outbox.getNodeId().equals(row.origin)) {
+            changed.add(row.username);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("nodeId", outbox.getNodeId());
+        stats.put("highWaterMark", highWaterMark);
+        lock.lock();
+        try {
+            stats.put("pendingGaps", gaps.size());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("polls", polls.sum());
+        stats.put("appliedChanges", applied.sum());
+        stats.put("lateRows", lateRows.sum());
+        stats.put("failures", failures.sum());
+        stats.put("millisSinceLastPoll", System.currentTimeMillis() - lastSuccess);
+        return stats;
+    }
+
+    private static final class ChangeRow {
+        private final long id;
+        private final String username;
+        private final String origin;
+
+        private ChangeRow(long id, String username, String origin) {
+            this.id = id;
+            this.username = username;
+            this.origin = origin;
+        }
+    }
+}
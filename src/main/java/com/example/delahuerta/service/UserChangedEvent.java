@@ -0,0 +1,36 @@
+package com.example.delahuerta.service;
+
+import java.util.List;
+
+// Se publica cuando se crea un usuario o cambia su rol o contraseña. Los eventos remotos describen
+// cambios hechos en otra instancia (leídos de user_change) y no vuelven a escribirse en el outbox.
+public class UserChangedEvent {
+
+    private final List<String> usernames;
+    private final boolean remote;
+
+    public UserChangedEvent(List<String> usernames) {
+        this(usernames, false);
+    }
+
+    public UserChangedEvent(String username) {
+        this(List.of(username));
+    }
+
+    private UserChangedEvent(List<String> usernames, boolean remote) {
+        this.usernames = List.copyOf(usernames);
+        this.remote = remote;
+    }
+
+    public static UserChangedEvent remote(List<String> usernames) {
+        return new UserChangedEvent(usernames, true);
+    }
+
+    public List<String> getUsernames() {
+        return usernames;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.delahuerta.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Alta masiva de usuarios: lee el cuerpo por bloques, hashea en paralelo e inserta por lotes
+@Service
+public class UserImportService implements DisposableBean {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String INSERT_SQL = "INSERT INTO `user` (username, password, role) VALUES (?, ?, ?)";
+    private static final String EXISTING_SQL = "SELECT username FROM `user` WHERE username IN (:usernames)";
+    private static final String DEFAULT_ROLE = "USER";
+    private static final int MAX_REPORTED_FAILURES = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher events;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final ForkJoinPool hashPool;
+
+    public UserImportService(NamedParameterJdbcTemplate jdbcTemplate,
+                             PasswordEncoder passwordEncoder,
+                             ApplicationEventPublisher events,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${delahuerta.users.import.batch-size:500}") int batchSize,
+                             @Value("${delahuerta.users.import.hash-threads:0}") int hashThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.events = events;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.hashPool = new ForkJoinPool(hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors());
+    }
+
+    public Result importUsers(InputStream body, Format format) throws IOException {
+        long start = System.nanoTime();
+        Result result = new Result();
+        // repetidos solo dentro del bloque: entre bloques los atrapa la consulta de existentes (o el
+        // reintento por clave duplicada) sin guardar en memoria cada nombre del archivo
+        Set<String> seen = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!StringUtils.hasText(line)) {
+                continue;
+            }
+            // encabezado opcional en CSV
+            if (format == Format.CSV && lineNumber == 1 && line.trim().toLowerCase().startsWith("username")) {
+                continue;
+            }
+
+            Row row = format == Format.CSV ? parseCsv(lineNumber, line) : parseJson(lineNumber, line);
+            if (row.error != null) {
+                result.fail(row, row.error);
+            } else if (!seen.add(row.username)) {
+                result.fail(row, "Usuario repetido en el archivo");
+            } else {
+                chunk.add(row);
+            }
+
+            if (chunk.size() == batchSize) {
+                processChunk(chunk, result);
+                chunk.clear();
+                seen.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, result);
+        }
+
+        result.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        hashPool.shutdown();
+    }
+
+    private void processChunk(List<Row> chunk, Result result) {
+        // los que ya existen se reportan sin gastar un hash en ellos
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(EXISTING_SQL,
+                Collections.singletonMap("usernames", chunk.stream().map(row -> row.username).toList()),
+                String.class));
+        List<Row> rows = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (existing.contains(row.username)) {
+                result.fail(row, "El usuario ya existe");
+            } else {
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        hashAll(rows);
+
+        // el lote y sus filas de user_change (UserChangeOutbox) se confirman juntos
+        int inserted = transactionTemplate.execute(status -> insertAll(rows, result));
+        result.inserted += inserted;
+    }
+
+    private int insertAll(List<Row> rows, Result result) {
+        List<String> inserted = new ArrayList<>(rows.size());
+        // MySQL deshace solo la sentencia que falla: las filas del lote anteriores al error quedarían
+        // insertadas y el reintento las tomaría por duplicados. El savepoint deja el lote en cero.
+        Savepoint batch = savepoint();
+        try {
+            jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+                ps.setString(1, row.username);
+                ps.setString(2, row.hash);
+                ps.setString(3, row.role);
+            });
+            release(batch);
+            rows.forEach(row -> inserted.add(row.username));
+        } catch (DataAccessException ex) {
+            rollbackTo(batch);
+            // alguien insertó en paralelo: se reintenta fila por fila para aislar el fallo
+            for (Row row : rows) {
+                Savepoint single = savepoint();
+                try {
+                    jdbcTemplate.getJdbcTemplate().update(INSERT_SQL, row.username, row.hash, row.role);
+                    release(single);
+                    inserted.add(row.username);
+                } catch (DuplicateKeyException dup) {
+                    rollbackTo(single);
+                    result.fail(row, "El usuario ya existe");
+                } catch (DataAccessException rowEx) {
+                    rollbackTo(single);
+                    result.fail(row, rowEx.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        if (!inserted.isEmpty()) {
+            events.publishEvent(new UserChangedEvent(inserted));
+        }
+        return inserted.size();
+    }
+
+    // Sobre la conexión JDBC de la transacción en curso: JpaTransactionManager la comparte con JdbcTemplate
+    // pero no ofrece savepoints a través de TransactionStatus
+    private Savepoint savepoint() {
+        return jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+    }
+
+    private void rollbackTo(Savepoint savepoint) {
+        jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Void>) connection -> {
+            connection.rollback(savepoint);
+            return null;
+        });
+    }
+
+    private void release(Savepoint savepoint) {
+        jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Void>) connection -> {
+            connection.releaseSavepoint(savepoint);
+            return null;
+        });
+    }
+
+    private void hashAll(List<Row> rows) {
+        try {
+            hashPool.submit(() -> rows.parallelStream()
+                    .forEach(row -> row.hash = passwordEncoder.encode(row.password)))
+                    .get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importación interrumpida", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("No se pudieron encriptar las contraseñas", ex.getCause());
+        }
+    }
+
+    // username,password[,role]; un campo entre comillas puede llevar comas y "" por cada comilla (RFC 4180)
+    private static Row parseCsv(int lineNumber, String line) {
+        List<String> pieces = splitCsv(line);
+        if (pieces == null) {
+            Row row = new Row(lineNumber, null, null, null);
+            row.error = "CSV inválido: comillas sin cerrar o texto después de la comilla de cierre";
+            return row;
+        }
+        String role = pieces.size() > 2 ? pieces.get(2).trim() : null;
+        return Row.of(lineNumber, pieces.get(0).trim(), pieces.size() > 1 ? pieces.get(1) : null, role);
+    }
+
+    // Campos de una línea; null si las comillas están mal formadas. No admite saltos de línea dentro de
+    // un campo: el cuerpo se lee línea por línea.
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            if (i < line.length() && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= line.length()) {
+                        return null;
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < line.length() && line.charAt(i) != ',') {
+                    return null;
+                }
+            } else {
+                // sin comillas al comienzo el campo se toma tal cual, comillas sueltas incluidas
+                while (i < line.length() && line.charAt(i) != ',') {
+                    field.append(line.charAt(i++));
+                }
+            }
+            fields.add(field.toString());
+            field.setLength(0);
+            if (i >= line.length()) {
+                return fields;
+            }
+            i++; // la coma
+        }
+    }
+
+    private Row parseJson(int lineNumber, String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            return Row.of(lineNumber, node.path("username").asText(null),
+                    node.path("password").asText(null), node.path("role").asText(null));
+        } catch (IOException ex) {
+            Row row = new Row(lineNumber, null, null, null);
+            row.error = "JSON inválido";
+            return row;
+        }
+    }
+
+    private static final class Row {
+        private final int line;
+        private final String username;
+        private final String password;
+        private final String role;
+        private volatile String hash;
+        private String error;
+
+        private Row(int line, String username, String password, String role) {
+            this.line = line;
+            this.username = username;
+            this.password = password;
+            this.role = role;
+        }
+
+        private static Row of(int line, String username, String password, String role) {
+            Row row = new Row(line, username, password, StringUtils.hasText(role) ? role : DEFAULT_ROLE);
+            if (!StringUtils.hasText(username) || !StringUtils.hasText(password)) {
+                row.error = "username y password son obligatorios";
+            }
+            return row;
+        }
+    }
+
+    public static final class Result {
+        private long inserted;
+        private long failedCount;
+        private long elapsedMs;
+        private final List<Failure> failures = new ArrayList<>();
+
+        private void fail(Row row, String error) {
+            failedCount++;
+            if (failures.size() < MAX_REPORTED_FAILURES) {
+                failures.add(new Failure(row.line, row.username, error));
+            }
+        }
+
+        public long getInserted() {
+            return inserted;
+        }
+
+        public long getFailed() {
+            return failedCount;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedMs == 0 ? inserted : inserted * 1000.0 / elapsedMs;
+        }
+
+        public List<Failure> getFailures() {
+            return failures;
+        }
+    }
+
+    public static final class Failure {
+        private final int line;
+        private final String username;
+        private final String error;
+
+        private Failure(int line, String username, String error) {
+            this.line = line;
+            this.username = username;
+            this.error = error;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
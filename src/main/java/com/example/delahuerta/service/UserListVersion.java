@@ -0,0 +1,25 @@
+package com.example.delahuerta.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Versión de los datos de usuarios para los ETag del listado. Sube después del commit de cada cambio,
+// así que un ETag leído antes de consultar nunca queda asociado a datos más nuevos que él.
+// El prefijo cambia en cada arranque: un ETag de otra instancia o de un proceso anterior no coincide.
+@Component
+public class UserListVersion {
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    public String etag() {
+        return "\"users-" + instance + "-" + version.get() + "\"";
+    }
+}
@@ -2,31 +2,62 @@ package com.example.delahuerta.service;
 
 import com.example.delahuerta.model.User;
 import com.example.delahuerta.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepo;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher events;
 
-    public UserService(UserRepository userRepo, PasswordEncoder passwordEncoder) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public UserService(UserRepository userRepo, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher events) {
         this.userRepo = userRepo;
         this.passwordEncoder = passwordEncoder;
+        this.events = events;
     }
 
     @Transactional
     public User createUser(User user) {
         user.setId(null);
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepo.save(user);
+        User saved = userRepo.save(user);
+        events.publishEvent(new UserChangedEvent(saved.getUsername()));
+        return saved;
     }
 
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepo.findAll();
     }
+
+    @Transactional(readOnly = true)
+    public List<User> getUsersAfter(long afterId, int limit) {
+        return userRepo.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
+    // Recorre todos los usuarios con memoria constante: cada entidad se desprende al procesarla
+    @Transactional(readOnly = true)
+    public void forEachUser(Consumer<User> consumer) {
+        try (Stream<User> users = userRepo.streamAllOrderById()) {
+            users.forEach(user -> {
+                consumer.accept(user);
+                entityManager.detach(user);
+            });
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Las bases creadas con ddl-auto=update antes de Flyway quedan marcadas en la versión 1
+// (spring.flyway.baseline-on-migrate): V1 nunca corrió sobre ellas y les falta lo que V1 da por hecho.
+//
+//  - request_log.id sin AUTO_INCREMENT: el @GeneratedValue original tomaba los ids de request_log_seq
+//    y los INSERT por lotes de RequestLogWriter, que no mandan id, fallan
+//  - duration_ms, status y response_bytes, si la base no pasó por ddl-auto=update después de agregarlos
+//  - los índices idx_request_log_* de las analíticas, la exportación y la retención
+//  - la restricción única de user.username
+//
+// Cada paso consulta antes el catálogo: sobre una base creada por V1 esta migración no cambia nada.
+public class V8__Repair_pre_flyway_schema extends BaseJavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(V8__Repair_pre_flyway_schema.class);
+
+    private static final String[][] REQUEST_LOG_COLUMNS = {
+            {"duration_ms", "BIGINT"},
+            {"status", "INTEGER"},
+            {"response_bytes", "BIGINT"},
+    };
+
+    private static final String[][] REQUEST_LOG_INDEXES = {
+            {"idx_request_log_timestamp", "`timestamp`"},
+            {"idx_request_log_method_timestamp", "method, `timestamp`"},
+            {"idx_request_log_path_timestamp", "path, `timestamp`"},
+    };
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            repairRequestLog(connection, statement);
+            repairUser(connection, statement);
+        }
+    }
+
+    private void repairRequestLog(Connection connection, Statement statement) throws SQLException {
+        Map<String, Boolean> columns = columns(connection, "request_log");
+        if (columns.isEmpty()) {
+            return;
+        }
+        for (String[] column : REQUEST_LOG_COLUMNS) {
+            if (!columns.containsKey(column[0])) {
+                execute(statement, "ALTER TABLE request_log ADD COLUMN " + column[0] + " " + column[1]);
+            }
+        }
+        // MySQL continúa la numeración desde el mayor id existente
+        if (!Boolean.TRUE.equals(columns.get("id"))) {
+            execute(statement, "ALTER TABLE request_log MODIFY id BIGINT NOT NULL AUTO_INCREMENT");
+        }
+
+        Map<String, List<String>> indexes = indexes(connection, "request_log", false);
+        for (String[] index : REQUEST_LOG_INDEXES) {
+            List<String> wanted = List.of(index[1].replace("`", "").split(",\\s*"));
+            if (!indexes.containsKey(index[0]) && !indexes.containsValue(wanted)) {
+                execute(statement, "CREATE INDEX " + index[0] + " ON request_log (" + index[1] + ")");
+            }
+        }
+    }
+
+    private void repairUser(Connection connection, Statement statement) throws SQLException {
+        if (columns(connection, "user").isEmpty()) {
+            return;
+        }
+        // Hibernate creaba la restricción con un nombre generado: alcanza con que exista alguna
+        if (indexes(connection, "user", true).containsValue(List.of("username"))) {
+            return;
+        }
+        List<String> repeated = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery(
+                "SELECT username FROM `user` GROUP BY username HAVING COUNT(*) > 1")) {
+            while (rs.next()) {
+                repeated.add(rs.getString(1));
+            }
+        }
+        if (!repeated.isEmpty()) {
+            throw new IllegalStateException("No se puede crear uk_user_username: hay nombres de usuario repetidos "
+                    + repeated + ". Hay que unificarlos a mano antes de volver a arrancar.");
+        }
+        execute(statement, "ALTER TABLE `user` ADD CONSTRAINT uk_user_username UNIQUE (username)");
+    }
+
+    private static void execute(Statement statement, String sql) throws SQLException {
+        logger.info("Reparando esquema anterior a Flyway: {}", sql);
+        statement.execute(sql);
+    }
+
+    // Nombre de columna (en minúsculas) y si es autoincremental; vacío si la tabla no existe
+    private static Map<String, Boolean> columns(Connection connection, String table) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        Map<String, Boolean> columns = new HashMap<>();
+        try (ResultSet rs = meta.getColumns(connection.getCatalog(), connection.getSchema(), identifier(meta, table), null)) {
+            while (rs.next()) {
+                columns.put(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT),
+                        "YES".equalsIgnoreCase(rs.getString("IS_AUTOINCREMENT")));
+            }
+        }
+        return columns;
+    }
+
+    // Nombre de índice y sus columnas en orden, todo en minúsculas
+    private static Map<String, List<String>> indexes(Connection connection, String table, boolean uniqueOnly)
+            throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        Map<String, TreeMap<Short, String>> ordered = new HashMap<>();
+        try (ResultSet rs = meta.getIndexInfo(connection.getCatalog(), connection.getSchema(), identifier(meta, table),
+                uniqueOnly, false)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (name != null && column != null) {
+                    ordered.computeIfAbsent(name.toLowerCase(Locale.ROOT), key -> new TreeMap<>())
+                            .put(rs.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        Map<String, List<String>> indexes = new HashMap<>();
+        ordered.forEach((name, positions) -> indexes.put(name, List.copyOf(positions.values())));
+        return indexes;
+    }
+
+    private static String identifier(DatabaseMetaData meta, String name) throws SQLException {
+        return meta.storesUpperCaseIdentifiers() ? name.toUpperCase(Locale.ROOT) : name;
+    }
+}
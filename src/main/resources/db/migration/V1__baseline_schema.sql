@@ -0,0 +1,27 @@
+-- Esquema tal como lo dejaba ddl-auto=update: las bases existentes se marcan en esta versión
+-- (spring.flyway.baseline-on-migrate) y solo aplican las migraciones siguientes.
+
+CREATE TABLE IF NOT EXISTS `user` (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_user_username UNIQUE (username)
+);
+
+CREATE TABLE IF NOT EXISTS request_log (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    method VARCHAR(255),
+    path VARCHAR(255),
+    ip VARCHAR(255),
+    `timestamp` DATETIME(6),
+    duration_ms BIGINT,
+    status INTEGER,
+    response_bytes BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_request_log_timestamp ON request_log (`timestamp`);
+CREATE INDEX idx_request_log_method_timestamp ON request_log (method, `timestamp`);
+CREATE INDEX idx_request_log_path_timestamp ON request_log (path, `timestamp`);
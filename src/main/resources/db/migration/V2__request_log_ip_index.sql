@@ -0,0 +1,2 @@
+-- Analíticas agrupadas por IP dentro de un rango de fechas
+CREATE INDEX idx_request_log_ip_timestamp ON request_log (ip, `timestamp`);
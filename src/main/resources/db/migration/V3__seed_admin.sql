@@ -0,0 +1,5 @@
+-- Usuario admin inicial (contraseña admin123, BCrypt con costo 10). Si ya existe no se toca.
+INSERT INTO `user` (username, password, role)
+SELECT 'admin', '$2a$10$VMzKyKcGXSZD.zzi8v9PSusGeVI7I5YTATWYange8ScmjeQaRD9DG', 'ADMIN'
+FROM DUAL
+WHERE NOT EXISTS (SELECT 1 FROM `user` WHERE username = 'admin');
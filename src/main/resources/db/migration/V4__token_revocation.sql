@@ -0,0 +1,16 @@
+-- Revocación de JWT: tokens sueltos por "jti" y cortes por usuario ("not before").
+-- Las filas se borran cuando ya no queda ningún token vivo al que afecten (expires_at).
+CREATE TABLE revoked_token (
+    jti VARCHAR(64) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (jti)
+);
+
+CREATE INDEX idx_revoked_token_expires_at ON revoked_token (expires_at);
+
+CREATE TABLE user_token_cutoff (
+    username VARCHAR(255) NOT NULL,
+    not_before DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (username)
+);
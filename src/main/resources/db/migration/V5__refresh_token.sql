@@ -0,0 +1,18 @@
+-- Refresh tokens rotativos: se guarda solo el SHA-256 del token. Cada login abre una familia; cada
+-- renovación marca el token usado (used_at) y agrega el siguiente a la misma familia. Presentar un token
+-- ya usado revoca la familia entera.
+CREATE TABLE refresh_token (
+    token_hash VARCHAR(64) NOT NULL,
+    family_id VARCHAR(36) NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    access_jti VARCHAR(64),
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    used_at DATETIME(6),
+    revoked_at DATETIME(6),
+    PRIMARY KEY (token_hash)
+);
+
+CREATE INDEX idx_refresh_token_family ON refresh_token (family_id);
+CREATE INDEX idx_refresh_token_username ON refresh_token (username);
+CREATE INDEX idx_refresh_token_expires_at ON refresh_token (expires_at);
@@ -0,0 +1,11 @@
+-- Outbox de cambios de usuarios: cada alta o cambio de rol/contraseña agrega una fila en la misma
+-- transacción. Las demás instancias la leen por id (clave primaria) para invalidar sus cachés.
+CREATE TABLE user_change (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    origin VARCHAR(36) NOT NULL,
+    changed_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_user_change_changed_at ON user_change (changed_at);
@@ -0,0 +1,3 @@
+-- Con muestreo cada fila representa sample_weight peticiones (1 = se guardaron todas). Las filas
+-- anteriores se registraron sin muestreo.
+ALTER TABLE request_log ADD COLUMN sample_weight INTEGER DEFAULT 1 NOT NULL;
@@ -0,0 +1,70 @@
+package com.example.delahuerta.archive;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.delahuerta.archive.RequestLogSegment.SegmentInfo;
+import com.example.delahuerta.model.RequestLog;
+
+// Suficientes filas para que el índice de tiempo tenga varias entradas
+class RequestLogSegmentTests {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 12, 0, 0, 123_456_000);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void scansByTimeRangeAndMethod() throws Exception {
+		List<RequestLog> rows = new ArrayList<>();
+		for (int i = 999; i >= 0; i--) {
+			rows.add(log(i + 1, i % 3 == 0 ? "POST" : "GET", START.plusSeconds(i)));
+		}
+		Path file = directory.resolve("segment.seg");
+		SegmentInfo info = RequestLogSegment.write(file, rows);
+
+		assertEquals(1000, info.getRows());
+		assertEquals(START, RequestLogSegment.readInfo(file).getMinTimestamp());
+		assertEquals(START.plusSeconds(999), RequestLogSegment.readInfo(file).getMaxTimestamp());
+
+		List<RequestLog> found = new ArrayList<>();
+		long emitted = RequestLogSegment.scan(file, START.plusSeconds(300), START.plusSeconds(600), "POST", found::add);
+		assertEquals(100, emitted);
+		assertEquals(301, found.get(0).getId());
+		assertEquals(START.plusSeconds(300), found.get(0).getTimestamp());
+		assertEquals("/items/1", found.get(0).getPath());
+		assertNull(found.get(0).getDurationMs());
+		assertEquals(1, found.get(0).getSampleWeight());
+		assertEquals(310, found.get(3).getId());
+		assertEquals(10, found.get(3).getSampleWeight());
+		assertEquals(598, found.get(99).getId());
+
+		assertEquals(0, RequestLogSegment.scan(file, START, START.plusDays(1), "DELETE", found::add));
+		assertEquals(1000, RequestLogSegment.readIds(file).length);
+		assertArrayEquals(new long[] {1, 2, 3}, Arrays.copyOf(RequestLogSegment.readIds(file), 3));
+	}
+
+	private static RequestLog log(long id, String method, LocalDateTime timestamp) {
+		RequestLog log = new RequestLog();
+		log.setId(id);
+		log.setMethod(method);
+		log.setPath("/items/" + (id % 10));
+		log.setIp("10.0.0." + (id % 4));
+		log.setTimestamp(timestamp);
+		log.setDurationMs(id % 2 == 0 ? id : null);
+		log.setStatus(200);
+		log.setResponseBytes(id * 10);
+		log.setSampleWeight(id % 5 == 0 ? 10 : 1);
+		return log;
+	}
+}
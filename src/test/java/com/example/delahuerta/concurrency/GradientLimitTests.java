@@ -0,0 +1,53 @@
+package com.example.delahuerta.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class GradientLimitTests {
+
+	private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private long now;
+
+	@Test
+	void growsWhileLatencyStaysFlatUnderLoad() {
+		GradientLimit limit = new GradientLimit(20, 4, 200, 1.5, 0.2, WINDOW, 10, now);
+		runWindows(limit, 50, RTT, 200);
+		assertTrue(limit.getLimit() > 40, "límite: " + limit.getLimit());
+	}
+
+	@Test
+	void shrinksWhenLatencyRisesAndRecoversAfterwards() {
+		GradientLimit limit = new GradientLimit(100, 4, 200, 1.5, 0.2, WINDOW, 10, now);
+		runWindows(limit, 20, RTT, 100);
+		int before = limit.getLimit();
+
+		runWindows(limit, 20, RTT * 10, 100);
+		int degraded = limit.getLimit();
+		assertTrue(degraded < before / 2, "antes: " + before + ", después: " + degraded);
+
+		runWindows(limit, 50, RTT, 200);
+		assertTrue(limit.getLimit() > degraded * 2, "recuperado: " + limit.getLimit());
+	}
+
+	@Test
+	void doesNotGrowWithoutDemand() {
+		GradientLimit limit = new GradientLimit(50, 4, 200, 1.5, 0.2, WINDOW, 10, now);
+		runWindows(limit, 20, RTT, 5);
+		assertEquals(50, limit.getLimit());
+	}
+
+	private void runWindows(GradientLimit limit, int windows, long rtt, int inflight) {
+		for (int w = 0; w < windows; w++) {
+			for (int i = 0; i < 20; i++) {
+				now += WINDOW / 20;
+				limit.onSample(rtt, inflight, now);
+			}
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.example.delahuerta.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Dos bases H2 en memoria hacen de primario y réplica; cada una se identifica por su contenido
+class ReplicaRoutingDataSourceTests {
+
+	private ReplicaRoutingDataSource routing;
+
+	@AfterEach
+	void close() throws Exception {
+		routing.destroy();
+	}
+
+	@Test
+	void readOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+		routing = new ReplicaRoutingDataSource(database("primary"), Map.of("replica-1", database("replica")), 10_000);
+		JdbcTemplate jdbc = new JdbcTemplate(routing);
+
+		assertEquals("replica", read(jdbc));
+		assertEquals("primary", write(jdbc));
+		// fuera de una transacción todo va al primario
+		assertEquals("primary", jdbc.queryForObject("SELECT name FROM node", String.class));
+	}
+
+	@Test
+	void readsFallBackToPrimaryWhenReplicaIsDown() {
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		replicas.put("replica-1", new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unreachable"));
+		routing = new ReplicaRoutingDataSource(database("primary"), replicas, 10_000);
+		JdbcTemplate jdbc = new JdbcTemplate(routing);
+
+		assertEquals("primary", read(jdbc));
+		assertEquals("primary", read(jdbc));
+		assertEquals(2L, routing.stats().get("primaryFallbacks"));
+	}
+
+	private String read(JdbcTemplate jdbc) {
+		TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(routing));
+		tx.setReadOnly(true);
+		return tx.execute(status -> jdbc.queryForObject("SELECT name FROM node", String.class));
+	}
+
+	private String write(JdbcTemplate jdbc) {
+		TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(routing));
+		return tx.execute(status -> {
+			jdbc.update("UPDATE node SET hits = hits + 1");
+			return jdbc.queryForObject("SELECT name FROM node", String.class);
+		});
+	}
+
+	private static DataSource database(String name) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("DROP TABLE IF EXISTS node");
+		jdbc.execute("CREATE TABLE node (name VARCHAR(20), hits INT)");
+		jdbc.update("INSERT INTO node (name, hits) VALUES (?, 0)", name);
+		return dataSource;
+	}
+}
@@ -0,0 +1,99 @@
+package com.example.delahuerta.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.example.delahuerta.DelahuertaApplication;
+import com.example.delahuerta.model.User;
+import com.example.delahuerta.repository.UserRepository;
+import com.example.delahuerta.service.UserService;
+
+// El camino de producción: JpaTransactionManager y finders de Spring Data sobre ReplicaRoutingDataSource.
+// Un usuario que solo existe en la réplica delata hacia dónde fue cada lectura.
+class ReplicaRoutingJpaTests {
+
+	private ConfigurableApplicationContext context;
+	private JdbcTemplate primary;
+
+	@BeforeEach
+	void start() {
+		String suffix = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+		String primaryUrl = "jdbc:h2:mem:primary-" + UUID.randomUUID() + suffix;
+		String replicaUrl = "jdbc:h2:mem:replica-" + UUID.randomUUID() + suffix;
+
+		DriverManagerDataSource replica = new DriverManagerDataSource(replicaUrl, "sa", "");
+		Flyway.configure().dataSource(replica).load().migrate();
+		new JdbcTemplate(replica).update(
+				"INSERT INTO `user` (username, password, role) VALUES ('solo-replica', 'x', 'USER')");
+
+		context = new SpringApplicationBuilder(DelahuertaApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=" + primaryUrl,
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--delahuerta.datasource.replica.urls=" + replicaUrl,
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.org.springframework.security=INFO",
+				"--logging.level.org.springframework.web=INFO");
+		primary = new JdbcTemplate(new DriverManagerDataSource(primaryUrl, "sa", ""));
+	}
+
+	@AfterEach
+	void stop() {
+		context.close();
+	}
+
+	@Test
+	void listingsReadFromTheReplica() {
+		assertEquals(0, primary.queryForObject("SELECT COUNT(*) FROM `user` WHERE username = 'solo-replica'", Integer.class));
+
+		UserService users = context.getBean(UserService.class);
+		assertTrue(users.getAllUsers().stream().anyMatch(user -> "solo-replica".equals(user.getUsername())));
+		assertTrue(users.getUsersAfter(0, 10).stream().anyMatch(user -> "solo-replica".equals(user.getUsername())));
+
+		@SuppressWarnings("unchecked")
+		Map<String, Object> replica = ((List<Map<String, Object>>) context.getBean(ReplicaRoutingDataSource.class)
+				.stats().get("replicas")).get(0);
+		assertTrue((Long) replica.get("connections") >= 2, "conexiones a la réplica: " + replica.get("connections"));
+	}
+
+	@Test
+	void authenticationLookupsReadFromThePrimary() {
+		// una réplica atrasada no puede devolver una contraseña o un rol que ya cambiaron en el primario
+		UserRepository users = context.getBean(UserRepository.class);
+		assertTrue(users.findByUsername("solo-replica").isEmpty());
+		assertTrue(users.findByUsernameIn(List.of("solo-replica", "nadie")).isEmpty());
+		// el filtro JWT y el login pasan por UserBatchLoader, en sus propios hilos
+		assertThrows(UsernameNotFoundException.class,
+				() -> context.getBean(UserDetailsService.class).loadUserByUsername("solo-replica"));
+	}
+
+	@Test
+	void writesStillGoToThePrimary() {
+		User user = new User();
+		user.setUsername("nuevo");
+		user.setPassword("secret");
+		user.setRole("USER");
+		context.getBean(UserService.class).createUser(user);
+
+		assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM `user` WHERE username = 'nuevo'", Integer.class));
+	}
+}
@@ -0,0 +1,142 @@
+package com.example.delahuerta.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.delahuerta.DelahuertaApplication;
+import com.example.delahuerta.security.services.LoginExecutor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// La aplicación completa sobre H2 con un pool de login de un hilo y sin cola; el admin sale de V3
+class AuthControllerTests {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private final ObjectMapper mapper = new ObjectMapper();
+	private ConfigurableApplicationContext context;
+	private int port;
+
+	@BeforeEach
+	void start() {
+		context = new SpringApplicationBuilder(DelahuertaApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:auth-" + UUID.randomUUID()
+						+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.org.springframework.security=INFO",
+				"--logging.level.org.springframework.web=INFO",
+				"--delahuerta.login.executor.threads=1",
+				"--delahuerta.login.executor.queue-capacity=0",
+				"--delahuerta.login.executor.retry-after-seconds=7");
+		port = ((WebServerApplicationContext) context).getWebServer().getPort();
+	}
+
+	@AfterEach
+	void stop() {
+		context.close();
+	}
+
+	@Test
+	void saturatedLoginPoolAnswers503WithRetryAfter() throws Exception {
+		// el único hilo del pool queda ocupado y no hay cola
+		CountDownLatch release = new CountDownLatch(1);
+		context.getBean(LoginExecutor.class).submit(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return null;
+		});
+		try {
+			HttpResponse<String> rejected = login();
+			assertEquals(503, rejected.statusCode());
+			assertEquals("7", rejected.headers().firstValue("Retry-After").orElse(null));
+			assertEquals(1L, context.getBean(LoginExecutor.class).stats().get("rejected"));
+		} finally {
+			release.countDown();
+		}
+
+		// con el hilo libre el login vuelve a funcionar
+		long deadline = System.currentTimeMillis() + 5_000;
+		HttpResponse<String> accepted = login();
+		while (accepted.statusCode() == 503 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+			accepted = login();
+		}
+		assertEquals(200, accepted.statusCode());
+	}
+
+	@Test
+	void refreshRotatesTheTokenPairAndRejectsReuse() throws Exception {
+		JsonNode first = mapper.readTree(login().body());
+
+		HttpResponse<String> refreshed = post("/api/token/refresh", null, refreshBody(first));
+		assertEquals(200, refreshed.statusCode());
+		JsonNode second = mapper.readTree(refreshed.body());
+		assertEquals("admin", second.get("username").asText());
+		assertEquals("ADMIN", second.get("role").asText());
+		assertNotEquals(first.get("refreshToken").asText(), second.get("refreshToken").asText());
+		assertEquals(200, get("/api/user/profile", second.get("token").asText()));
+
+		// el refresh token ya usado no sirve otra vez
+		assertEquals(401, post("/api/token/refresh", null, refreshBody(first)).statusCode());
+		assertEquals(401, post("/api/token/refresh", null, "{}").statusCode());
+	}
+
+	@Test
+	void logoutRevokesTheAccessTokenAndTheRefreshFamily() throws Exception {
+		JsonNode tokens = mapper.readTree(login().body());
+		String accessToken = tokens.get("token").asText();
+		assertEquals(200, get("/api/user/profile", accessToken));
+
+		assertEquals(204, post("/api/logout", accessToken, refreshBody(tokens)).statusCode());
+
+		assertNotEquals(200, get("/api/user/profile", accessToken));
+		assertEquals(401, post("/api/token/refresh", null, refreshBody(tokens)).statusCode());
+	}
+
+	private HttpResponse<String> login() throws Exception {
+		return post("/api/login", null, "{\"username\":\"admin\",\"password\":\"admin123\"}");
+	}
+
+	private String refreshBody(JsonNode tokens) {
+		return "{\"refreshToken\":\"" + tokens.get("refreshToken").asText() + "\"}";
+	}
+
+	private HttpResponse<String> post(String path, String accessToken, String body) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body));
+		if (accessToken != null) {
+			request.header("Authorization", "Bearer " + accessToken);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private int get(String path, String accessToken) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+				.header("Authorization", "Bearer " + accessToken)
+				.GET()
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+}
@@ -0,0 +1,148 @@
+package com.example.delahuerta.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.example.delahuerta.model.RequestLog;
+import com.example.delahuerta.repository.RequestLogRepository;
+import com.example.delahuerta.security.jwt.JwtUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// La aplicación completa sobre H2. Las filas sembradas son de mayo de 2024: los logs de las propias
+// peticiones del test caen fuera del rango exportado.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:request-log-admin-${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.springframework.security=INFO",
+		"logging.level.org.springframework.web=INFO"})
+@AutoConfigureMockMvc
+class RequestLogAdminControllerTests {
+
+	private static final LocalDateTime DAY = LocalDateTime.of(2024, 5, 1, 0, 0);
+	private static final int ROWS = 6;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private JwtUtils jwtUtils;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private RequestLogRepository requestLogRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private String adminToken;
+
+	@BeforeEach
+	void seed() {
+		adminToken = jwtUtils.generateToken(
+				new User("admin", "", List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+		if (jdbc.queryForObject("SELECT COUNT(*) FROM request_log WHERE timestamp < ?", Integer.class,
+				Timestamp.valueOf(DAY.plusDays(1))) > 0) {
+			return;
+		}
+		for (int i = 0; i < ROWS; i++) {
+			jdbc.update("INSERT INTO request_log (method, path, ip, timestamp, duration_ms, status, response_bytes,"
+					+ " sample_weight) VALUES (?, ?, '10.0.0.1', ?, 3, 200, 120, 1)",
+					i % 2 == 0 ? "GET" : "POST", "/api/item/" + i, Timestamp.valueOf(DAY.plusMinutes(i)));
+		}
+	}
+
+	@Test
+	void ndjsonExportIsOneObjectPerLineWithNothingInBetween() throws Exception {
+		byte[] body = export("").getResponse().getContentAsByteArray();
+
+		StringBuilder expected = new StringBuilder();
+		for (RequestLog log : seeded()) {
+			expected.append(objectMapper.writeValueAsString(log)).append('\n');
+		}
+		assertArrayEquals(expected.toString().getBytes(StandardCharsets.UTF_8), body);
+	}
+
+	@Test
+	void exportStreamsEverySeededRowAndFiltersByMethod() throws Exception {
+		MockHttpServletResponse response = export("").getResponse();
+		assertEquals("application/x-ndjson", response.getContentType());
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(ROWS, lines(response.getContentAsString(StandardCharsets.UTF_8)).size());
+
+		List<String> posts = lines(export("&method=post").getResponse().getContentAsString(StandardCharsets.UTF_8));
+		assertEquals(ROWS / 2, posts.size());
+		for (String line : posts) {
+			assertEquals("POST", objectMapper.readTree(line).get("method").asText());
+		}
+	}
+
+	@Test
+	void gzipExportIsADownloadableArchiveOfTheSameLines() throws Exception {
+		MockHttpServletResponse response = export("&gzip=true").getResponse();
+		assertEquals("application/gzip", response.getContentType());
+		// es un archivo .ndjson.gz, no una codificación de transporte: el cliente no debe descomprimirlo solo
+		assertNull(response.getHeader("Content-Encoding"));
+		assertTrue(response.getHeader("Content-Disposition").contains("request-logs.ndjson.gz"));
+
+		String unzipped;
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+			unzipped = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		assertEquals(export("").getResponse().getContentAsString(StandardCharsets.UTF_8), unzipped);
+		assertEquals(ROWS, lines(unzipped).size());
+	}
+
+	private static List<String> lines(String body) {
+		return body.isEmpty() ? List.of() : List.of(body.split("\n"));
+	}
+
+	private MvcResult export(String extraParams) throws Exception {
+		MvcResult started = mvc.perform(authorized(get("/api/admin/request-logs/export?from=" + DAY
+				+ "&to=" + DAY.plusDays(1) + extraParams))).andReturn();
+		return mvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andReturn();
+	}
+
+	private List<RequestLog> seeded() {
+		return requestLogRepository.findAll(Sort.by("timestamp")).stream()
+				.filter(log -> log.getTimestamp().isBefore(DAY.plusDays(1)))
+				.toList();
+	}
+
+	private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+		return request.header("Authorization", "Bearer " + adminToken);
+	}
+}
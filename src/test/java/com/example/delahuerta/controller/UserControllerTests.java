@@ -0,0 +1,276 @@
+package com.example.delahuerta.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.delahuerta.security.jwt.JwtUtils;
+import com.example.delahuerta.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// La aplicación completa sobre H2 (esquema de las migraciones). Los tests comparten la base, así que cada
+// uno calcula lo esperado a partir de los ids que hay en ese momento.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:user-controller-${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.springframework.security=INFO",
+		"logging.level.org.springframework.web=INFO",
+		"delahuerta.users.change-feed.poll-interval-ms=100"})
+@AutoConfigureMockMvc
+class UserControllerTests {
+
+	private static final int MAX_PAGE_SIZE = 1000;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private JwtUtils jwtUtils;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private String adminToken;
+
+	@BeforeEach
+	void admin() {
+		adminToken = jwtUtils.generateToken(
+				new User("admin", "", List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+		int missing = 5 - jdbc.queryForObject("SELECT COUNT(*) FROM `user`", Integer.class);
+		for (int i = 0; i < missing; i++) {
+			insertUser("pagina-" + i);
+		}
+	}
+
+	@Test
+	void cursorWalksEveryUserOnceAndEndsWithoutNext() throws Exception {
+		List<Long> walked = new ArrayList<>();
+		long after = 0;
+		JsonNode page;
+		do {
+			page = page("/api/users?limit=2&after=" + after);
+			page.get("items").forEach(item -> walked.add(item.get("id").asLong()));
+			if (!page.get("next").isNull()) {
+				assertEquals(2, page.get("items").size());
+				after = page.get("next").asLong();
+			}
+		} while (!page.get("next").isNull());
+
+		assertEquals(ids(), walked);
+		// la última página puede venir corta o vacía, pero nunca trae cursor
+		assertTrue(page.get("items").size() < 2);
+	}
+
+	@Test
+	void lastFullPageIsFollowedByAnEmptyOne() throws Exception {
+		List<Long> ids = ids();
+		long beforeLastTwo = ids.get(ids.size() - 3);
+
+		JsonNode last = page("/api/users?limit=2&after=" + beforeLastTwo);
+		assertEquals(2, last.get("items").size());
+		assertEquals(ids.get(ids.size() - 1), last.get("next").asLong());
+
+		JsonNode empty = page("/api/users?limit=2&after=" + last.get("next").asLong());
+		assertEquals(0, empty.get("items").size());
+		assertTrue(empty.get("next").isNull());
+	}
+
+	@Test
+	void afterPastTheLastIdIsAnEmptyPage() throws Exception {
+		List<Long> ids = ids();
+		long pastTheEnd = ids.get(ids.size() - 1) + 1_000;
+
+		for (String uri : List.of("/api/users?limit=10&after=" + pastTheEnd, "/api/users?after=" + pastTheEnd)) {
+			JsonNode page = page(uri);
+			assertEquals(0, page.get("items").size());
+			assertTrue(page.get("next").isNull());
+		}
+	}
+
+	@Test
+	void limitIsClampedBetweenOneAndTheMaximum() throws Exception {
+		List<Long> ids = ids();
+		for (String limit : List.of("0", "-5")) {
+			JsonNode page = page("/api/users?limit=" + limit);
+			assertEquals(1, page.get("items").size());
+			assertEquals(ids.get(0), page.get("next").asLong());
+		}
+
+		for (int i = ids.size(); i <= MAX_PAGE_SIZE; i++) {
+			insertUser("tope-" + i);
+		}
+		ids = ids();
+		for (String uri : List.of("/api/users?limit=5000", "/api/users?after=0")) {
+			JsonNode page = page(uri);
+			assertEquals(MAX_PAGE_SIZE, page.get("items").size());
+			assertEquals(ids.get(MAX_PAGE_SIZE - 1), page.get("next").asLong());
+		}
+	}
+
+	@Test
+	void ndjsonStreamIsOneObjectPerLineWithNothingInBetween() throws Exception {
+		MvcResult started = mvc.perform(authorized(get("/api/users/stream?format=ndjson"))).andReturn();
+		byte[] body = mvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+
+		StringBuilder expected = new StringBuilder();
+		for (Map<String, Object> row : jdbc.queryForList("SELECT id, username, role FROM `user` ORDER BY id")) {
+			expected.append("{\"id\":").append(row.get("id"))
+					.append(",\"username\":\"").append(row.get("username"))
+					.append("\",\"role\":\"").append(row.get("role")).append("\"}\n");
+		}
+		assertArrayEquals(expected.toString().getBytes(StandardCharsets.UTF_8), body);
+	}
+
+	@Test
+	void unchangedListingsAnswer304ToIfNoneMatch() throws Exception {
+		for (String uri : List.of("/api/users", "/api/users?limit=2", "/api/users?after=0", "/api/users/stream")) {
+			String etag = etag(uri);
+			MockHttpServletResponse response = mvc.perform(authorized(get(uri)).header("If-None-Match", etag))
+					.andExpect(status().isNotModified())
+					.andReturn().getResponse();
+			assertEquals(etag, response.getHeader("ETag"));
+			assertEquals(0, response.getContentLength());
+		}
+		// un ETag que no es el vigente recibe la lista completa
+		mvc.perform(authorized(get("/api/users")).header("If-None-Match", "\"users-otro-0\""))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void createAndImportChangeTheEtag() throws Exception {
+		String before = etag("/api/users");
+		mvc.perform(authorized(post("/api/users"))
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"username\":\"etag-alta\",\"password\":\"secret\",\"role\":\"USER\"}"))
+				.andExpect(status().isCreated());
+		String afterCreate = etag("/api/users");
+		assertNotEquals(before, afterCreate);
+		mvc.perform(authorized(get("/api/users")).header("If-None-Match", before))
+				.andExpect(status().isOk());
+
+		mvc.perform(authorized(post("/api/users/import"))
+						.contentType("text/csv")
+						.content("username,password,role\netag-import,secret,USER\n"))
+				.andExpect(status().isOk());
+		assertNotEquals(afterCreate, etag("/api/users"));
+	}
+
+	@Test
+	void etagChangesOnlyOnceTheChangeCommits() throws Exception {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		String before = etag("/api/users");
+
+		transaction.executeWithoutResult(status -> {
+			userService.createUser(user("etag-pendiente"));
+			// dentro de la transacción todavía no cambió: nadie puede ver los datos nuevos
+			assertEquals(before, etagUnchecked());
+		});
+		String committed = etag("/api/users");
+		assertNotEquals(before, committed);
+
+		transaction.executeWithoutResult(status -> {
+			userService.createUser(user("etag-revertido"));
+			status.setRollbackOnly();
+		});
+		assertEquals(committed, etag("/api/users"));
+	}
+
+	@Test
+	void changesFromOtherNodesChangeTheEtag() throws Exception {
+		// otra instancia actualizó o borró un usuario y lo anotó en el outbox
+		String before = etag("/api/users");
+		jdbc.update("INSERT INTO user_change (username, origin, changed_at) VALUES ('etag-remoto', 'otro-nodo', ?)",
+				new Timestamp(System.currentTimeMillis()));
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (before.equals(etag("/api/users")) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		assertNotEquals(before, etag("/api/users"));
+	}
+
+	private String etag(String uri) throws Exception {
+		String etag = mvc.perform(authorized(get(uri)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+		assertNotNull(etag);
+		return etag;
+	}
+
+	private String etagUnchecked() {
+		try {
+			return etag("/api/users");
+		} catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static com.example.delahuerta.model.User user(String username) {
+		com.example.delahuerta.model.User user = new com.example.delahuerta.model.User();
+		user.setUsername(username);
+		user.setPassword("secret");
+		user.setRole("USER");
+		return user;
+	}
+
+	private JsonNode page(String uri) throws Exception {
+		String body = mvc.perform(authorized(get(uri)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return mapper.readTree(body);
+	}
+
+	private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+		return request.header("Authorization", "Bearer " + adminToken);
+	}
+
+	private List<Long> ids() {
+		return jdbc.queryForList("SELECT id FROM `user` ORDER BY id", Long.class);
+	}
+
+	private void insertUser(String username) {
+		jdbc.update("INSERT INTO `user` (username, password, role) VALUES (?, 'x', 'USER')", username);
+	}
+}
@@ -0,0 +1,83 @@
+package com.example.delahuerta.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+class CachedBodyRequestWrapperTests {
+
+	private static final String BODY = "{\"username\":\"ana\",\"password\":\"x\"}";
+
+	@Test
+	void nonBlockingReaderGetsTheWholeCachedBody() throws IOException {
+		ServletInputStream in = wrapper().getInputStream();
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		List<String> calls = new ArrayList<>();
+
+		in.setReadListener(new ReadListener() {
+			@Override
+			public void onDataAvailable() throws IOException {
+				calls.add("data");
+				byte[] buffer = new byte[8];
+				while (in.isReady() && !in.isFinished()) {
+					read.write(buffer, 0, in.read(buffer));
+				}
+			}
+
+			@Override
+			public void onAllDataRead() {
+				calls.add("all");
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				calls.add("error");
+			}
+		});
+
+		assertEquals(List.of("data", "all"), calls);
+		assertEquals(BODY, read.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void listenerFailureIsReportedToOnError() throws IOException {
+		IOException failure = new IOException("cliente desconectado");
+		List<Throwable> errors = new ArrayList<>();
+
+		wrapper().getInputStream().setReadListener(new ReadListener() {
+			@Override
+			public void onDataAvailable() throws IOException {
+				throw failure;
+			}
+
+			@Override
+			public void onAllDataRead() {
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				errors.add(t);
+			}
+		});
+
+		assertEquals(1, errors.size());
+		assertSame(failure, errors.get(0));
+	}
+
+	private static CachedBodyRequestWrapper wrapper() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/login");
+		request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+		return new CachedBodyRequestWrapper(request, 8192);
+	}
+}
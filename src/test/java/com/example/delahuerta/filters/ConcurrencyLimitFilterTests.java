@@ -0,0 +1,60 @@
+package com.example.delahuerta.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+// Ventana de 0 ms y una muestra mínima: cada petición muestreada recalcula la latencia corta
+class ConcurrencyLimitFilterTests {
+
+	private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(true, 20, 4, 200, 1.5, 0.2, 0, 1,
+			new String[] {"/api/login"}, 1.0, 0.9, new String[] {"/api/admin/**"}, 0.5,
+			new String[] {"/api/users/import"}, 1);
+
+	@Test
+	void excludedRoutesAreAdmittedButLeaveTheRttAlone() throws Exception {
+		run("POST", "/api/users/import", 150);
+		assertEquals(0.0, stats().get("shortRttMs"));
+		assertEquals(0, stats().get("inflight"));
+		assertEquals(1L, normal().get("admitted"));
+
+		run("GET", "/api/users", 0);
+		assertTrue((double) stats().get("shortRttMs") < 100);
+
+		// un import lento no arrastra la latencia corta de las demás rutas
+		run("POST", "/api/users/import", 150);
+		assertTrue((double) stats().get("shortRttMs") < 100);
+	}
+
+	@Test
+	void slowRequestsOnOtherRoutesAreSampled() throws Exception {
+		run("GET", "/api/users", 150);
+		assertTrue((double) stats().get("shortRttMs") >= 150);
+	}
+
+	private void run(String method, String path, long sleepMs) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setServletPath(path);
+		filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+			try {
+				Thread.sleep(sleepMs);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+	}
+
+	private Map<String, Object> stats() {
+		return filter.stats();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> normal() {
+		return (Map<String, Object>) ((Map<String, Object>) stats().get("priorities")).get("NORMAL");
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.delahuerta.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+class JsonFieldFilteringOutputStreamTests {
+
+	@Test
+	void removesIdFieldsEvenWhenTokensAreSplitAcrossWrites() throws IOException {
+		assertEquals("{\"name\":\"a\",\"items\":[{\"v\":true}]}\n{\"n\":12345}",
+				filter("{\"id\":1,\"name\":\"a\",\"items\":[{\"item_id\":{\"x\":[2]},\"v\":true}]}\n{\"n\":12345}", 1));
+	}
+
+	@Test
+	void invalidTailIsSentUnchangedAfterTheFilteredPrefix() throws IOException {
+		String body = "{\"name\":\"a\",\"user_id\":5,\"note\":oops <b>not json</b>}";
+		String expected = "{\"name\":\"a\",\"note\":oops <b>not json</b>}";
+		for (int chunk : new int[] {1, 3, 7, body.length()}) {
+			assertEquals(expected, filter(body, chunk), "escrituras de " + chunk + " bytes");
+		}
+	}
+
+	@Test
+	void nonJsonBodyIsSentWhole() throws IOException {
+		String body = "Internal Server Error: ñandú\n";
+		assertEquals(body, filter(body, 4));
+		assertEquals(body, filter(body, body.length()));
+	}
+
+	@Test
+	void writeListenerGoesToTheWrappedStream() throws IOException {
+		Target target = new Target();
+		WriteListener listener = new WriteListener() {
+			@Override
+			public void onWritePossible() {
+			}
+
+			@Override
+			public void onError(Throwable t) {
+			}
+		};
+		new JsonFieldFilteringOutputStream(target, "id").setWriteListener(listener);
+		assertSame(listener, target.listener);
+	}
+
+	private static String filter(String body, int chunk) throws IOException {
+		Target target = new Target();
+		JsonFieldFilteringOutputStream out = new JsonFieldFilteringOutputStream(target, "id");
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i < bytes.length; i += chunk) {
+			out.write(bytes, i, Math.min(chunk, bytes.length - i));
+		}
+		out.finish();
+		return target.bytes.toString(StandardCharsets.UTF_8);
+	}
+
+	private static final class Target extends ServletOutputStream {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private WriteListener listener;
+
+		@Override
+		public void write(int b) {
+			bytes.write(b);
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener listener) {
+			this.listener = listener;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.example.delahuerta.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.delahuerta.security.jwt.JwtUtils;
+import com.example.delahuerta.security.jwt.TokenRevocationList;
+import com.example.delahuerta.security.services.UserDetailsServiceImpl;
+
+class JwtAuthenticationFilterTests {
+
+	private final JwtUtils jwtUtils = new JwtUtils(true, 100, Duration.ofMinutes(15));
+	private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+	private TokenRevocationList revocations;
+
+	@BeforeEach
+	void wire() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:jwt-filter-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		Flyway.configure().dataSource(dataSource).load().migrate();
+		revocations = new TokenRevocationList(new JdbcTemplate(dataSource), jwtUtils, true, 1000, 0.01, Duration.ofHours(24));
+		revocations.afterPropertiesSet();
+
+		ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+		ReflectionTestUtils.setField(filter, "revocationList", revocations);
+		ReflectionTestUtils.setField(filter, "userDetailsService", mock(UserDetailsServiceImpl.class));
+		ReflectionTestUtils.setField(filter, "claimsAuthentication", true);
+	}
+
+	@AfterEach
+	void clear() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void revokedTokenLeavesTheRequestUnauthenticated() throws Exception {
+		User ana = new User("ana", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+		String token = jwtUtils.generateToken(ana, "jti-ana");
+
+		MockFilterChain chain = filter(token);
+		assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+		assertEquals("ana", SecurityContextHolder.getContext().getAuthentication().getName());
+		assertNotNull(chain.getRequest());
+		SecurityContextHolder.clearContext();
+
+		revocations.revoke("jti-ana", new Date(System.currentTimeMillis() + 60_000));
+
+		chain = filter(token);
+		// la cadena sigue: es la configuración de seguridad la que responde 403
+		assertNotNull(chain.getRequest());
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	private MockFilterChain filter(String token) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/profile");
+		request.addHeader("Authorization", "Bearer " + token);
+		MockFilterChain chain = new MockFilterChain();
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+		return chain;
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.delahuerta.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.delahuerta.DelahuertaApplication;
+
+// La aplicación completa con la configuración de proxy de producción: los clientes llegan todos desde
+// 127.0.0.1, como detrás del proxy de Railway, y se distinguen solo por X-Forwarded-For
+class LoginRateLimitFilterTests {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private ConfigurableApplicationContext context;
+	private int port;
+
+	@BeforeEach
+	void start() throws Exception {
+		Properties prod = new Properties();
+		try (InputStream in = getClass().getResourceAsStream("/application-prod.properties")) {
+			prod.load(in);
+		}
+		context = new SpringApplicationBuilder(DelahuertaApplication.class).run(
+				"--server.port=0",
+				"--server.forward-headers-strategy=" + prod.getProperty("server.forward-headers-strategy"),
+				"--server.tomcat.remoteip.internal-proxies=" + prod.getProperty("server.tomcat.remoteip.internal-proxies"),
+				"--spring.datasource.url=jdbc:h2:mem:login-rate-" + UUID.randomUUID()
+						+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.org.springframework.security=INFO",
+				"--logging.level.org.springframework.web=INFO",
+				"--delahuerta.login-rate-limit.ip.capacity=2",
+				"--delahuerta.login-rate-limit.ip.refill-per-minute=1");
+		port = ((WebServerApplicationContext) context).getWebServer().getPort();
+	}
+
+	@AfterEach
+	void stop() {
+		context.close();
+	}
+
+	@Test
+	void forwardedClientsGetSeparateIpBuckets() throws Exception {
+		// usuarios distintos para no tocar el límite por nombre
+		assertEquals(401, login("203.0.113.10", "ana"));
+		assertEquals(401, login("203.0.113.10", "beto"));
+		assertEquals(429, login("203.0.113.10", "carla"));
+
+		assertEquals(401, login("198.51.100.20", "dario"));
+		assertEquals(401, login("198.51.100.20, 10.0.0.5", "elena"));
+		assertEquals(429, login("198.51.100.20", "fede"));
+	}
+
+	private int login(String forwardedFor, String username) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/login"))
+				.header("Content-Type", "application/json")
+				.header("X-Forwarded-For", forwardedFor)
+				.POST(HttpRequest.BodyPublishers.ofString(
+						"{\"username\":\"" + username + "\",\"password\":\"wrong\"}"))
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+}
@@ -0,0 +1,90 @@
+package com.example.delahuerta.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.delahuerta.metrics.RouteLatencyRegistry;
+import com.example.delahuerta.model.RequestLog;
+import com.example.delahuerta.service.RequestLogSampler;
+import com.example.delahuerta.service.RequestLogWriter;
+
+class RequestLoggingFilterTests {
+
+	private final RequestLogWriter writer = mock(RequestLogWriter.class);
+	private final RequestLoggingFilter filter = new RequestLoggingFilter();
+	private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	@BeforeEach
+	void wire() {
+		ReflectionTestUtils.setField(filter, "logWriter", writer);
+		ReflectionTestUtils.setField(filter, "latencyRegistry", new RouteLatencyRegistry(300, 20, 200));
+		// solo se guardan los errores: si el fallo quedara como 200 no llegaría a la base
+		ReflectionTestUtils.setField(filter, "sampler", new RequestLogSampler(new String[0], "tail:0", 60_000, 500));
+	}
+
+	@Test
+	void unhandledExceptionIsLoggedAsServerError() {
+		IllegalStateException failure = new IllegalStateException("boom");
+		IllegalStateException thrown = assertThrows(IllegalStateException.class,
+				() -> filter.doFilter(request, response, (req, res) -> {
+					throw failure;
+				}));
+
+		assertSame(failure, thrown);
+		assertEquals(500, enqueued().getStatus());
+	}
+
+	@Test
+	void asyncTimeoutIsLoggedAsServiceUnavailable() throws Exception {
+		request.setAsyncSupported(true);
+		filter.doFilter(request, response, (req, res) -> req.startAsync());
+		verify(writer, never()).enqueue(any());
+
+		MockAsyncContext async = (MockAsyncContext) request.getAsyncContext();
+		for (AsyncListener listener : async.getListeners()) {
+			listener.onTimeout(new AsyncEvent(async));
+		}
+		async.complete();
+
+		assertEquals(503, enqueued().getStatus());
+	}
+
+	@Test
+	void asyncErrorIsLoggedAsServerError() throws Exception {
+		request.setAsyncSupported(true);
+		filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+		MockAsyncContext async = (MockAsyncContext) request.getAsyncContext();
+		for (AsyncListener listener : async.getListeners()) {
+			listener.onError(new AsyncEvent(async, new IOException("cliente desconectado")));
+		}
+		async.complete();
+
+		assertEquals(500, enqueued().getStatus());
+	}
+
+	private RequestLog enqueued() {
+		ArgumentCaptor<RequestLog> log = ArgumentCaptor.forClass(RequestLog.class);
+		verify(writer).enqueue(log.capture());
+		return log.getValue();
+	}
+}
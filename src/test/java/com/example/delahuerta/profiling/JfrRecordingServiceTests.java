@@ -0,0 +1,56 @@
+package com.example.delahuerta.profiling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class JfrRecordingServiceTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recordsCustomEventsIntoTheReturnedFile() throws Exception {
+		JfrRecordingService service = new JfrRecordingService(5, 10 * 1024 * 1024);
+		Recording recording = service.start("default", 1);
+		assertThrows(IllegalStateException.class, () -> service.start("default", 1));
+
+		ProfiledPasswordEncoder encoder = new ProfiledPasswordEncoder(new BCryptPasswordEncoder(4));
+		assertTrue(encoder.matches("secret", encoder.encode("secret")));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		service.finish(recording, out);
+		Path file = directory.resolve("recording.jfr");
+		Files.write(file, out.toByteArray());
+
+		List<RecordedEvent> hashes = RecordingFile.readAllEvents(file).stream()
+				.filter(event -> event.getEventType().getName().equals("delahuerta.PasswordHash"))
+				.toList();
+		assertEquals(2, hashes.size());
+		assertEquals("encode", hashes.get(0).getString("operation"));
+		assertTrue(hashes.get(1).getBoolean("matched"));
+
+		// terminada la anterior se puede grabar otra
+		service.finish(service.start("default", 1), new ByteArrayOutputStream());
+	}
+
+	@Test
+	void rejectsUnknownSettingsAndDurationsOutOfRange() {
+		JfrRecordingService service = new JfrRecordingService(5, 10 * 1024 * 1024);
+		assertThrows(IllegalArgumentException.class, () -> service.start("fast", 1));
+		assertThrows(IllegalArgumentException.class, () -> service.start("default", 6));
+	}
+}
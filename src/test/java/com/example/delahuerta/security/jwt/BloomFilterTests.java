@@ -0,0 +1,32 @@
+package com.example.delahuerta.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+
+	@Test
+	void neverMissesAnAddedValueAndKeepsFalsePositivesNearTheTarget() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		String[] added = new String[10_000];
+		for (int i = 0; i < added.length; i++) {
+			added[i] = UUID.randomUUID().toString();
+			filter.add(added[i]);
+		}
+		for (String value : added) {
+			assertTrue(filter.mightContain(value));
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain(UUID.randomUUID().toString())) {
+				falsePositives++;
+			}
+		}
+		// 1 % esperado; el margen evita fallos por azar
+		assertTrue(falsePositives < 2_000, "falsos positivos: " + falsePositives);
+	}
+}
@@ -0,0 +1,119 @@
+package com.example.delahuerta.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+
+class JwtUtilsTests {
+
+	@Test
+	void cachedTokenIsServedUntilItsExp() throws Exception {
+		JwtUtils jwtUtils = new JwtUtils(true, 100, Duration.ofSeconds(1));
+		String token = jwtUtils.generateToken("ana");
+		Date expiration = jwtUtils.parseClaims(token).getExpiration();
+
+		assertEquals("ana", jwtUtils.parseClaims(token).getSubject());
+		assertEquals(1L, jwtUtils.stats().get("verifications"));
+		assertEquals(1L, jwtUtils.stats().get("cacheHits"));
+
+		// "exp" va en segundos: pasado ese instante el caché ya no lo sirve y la verificación lo rechaza
+		Thread.sleep(Math.max(0, expiration.getTime() - System.currentTimeMillis()) + 50);
+		assertThrows(ExpiredJwtException.class, () -> jwtUtils.parseClaims(token));
+		assertEquals(2L, jwtUtils.stats().get("verifications"));
+		assertEquals(0, jwtUtils.stats().get("cacheSize"));
+	}
+
+	@Test
+	void tokenWithABadSignatureIsNeverCached() {
+		JwtUtils jwtUtils = new JwtUtils(true, 100, Duration.ofMinutes(15));
+		String forged = Jwts.builder()
+				.setSubject("ana")
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(Keys.hmacShaKeyFor("OtraClaveCualquieraQueNoEsLaDelServidor12345678".getBytes(StandardCharsets.UTF_8)),
+						SignatureAlgorithm.HS256)
+				.compact();
+
+		assertThrows(SignatureException.class, () -> jwtUtils.parseClaims(forged));
+		assertThrows(SignatureException.class, () -> jwtUtils.parseClaims(forged));
+		assertEquals(2L, jwtUtils.stats().get("verifications"));
+		assertEquals(0L, jwtUtils.stats().get("cacheHits"));
+		assertEquals(0, jwtUtils.stats().get("cacheSize"));
+	}
+
+	@Test
+	void fullCacheEvictsATenthAndKeepsTheRest() {
+		JwtUtils jwtUtils = new JwtUtils(true, 10, Duration.ofMinutes(15));
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			tokens.add(jwtUtils.generateToken("user" + i));
+			jwtUtils.parseClaims(tokens.get(i));
+			int size = (int) jwtUtils.stats().get("cacheSize");
+			assertTrue(size <= 10, "tamaño: " + size);
+		}
+		assertTrue((int) jwtUtils.stats().get("cacheSize") >= 9);
+
+		// el último siempre queda; los desalojados se vuelven a verificar
+		long verifications = (long) jwtUtils.stats().get("verifications");
+		jwtUtils.parseClaims(tokens.get(24));
+		assertEquals(verifications, jwtUtils.stats().get("verifications"));
+	}
+
+	@Test
+	void concurrentEvictionsDoNotEmptyTheCache() throws Exception {
+		int maxSize = 200;
+		int threads = 8;
+		JwtUtils jwtUtils = new JwtUtils(true, maxSize, Duration.ofMinutes(15));
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < maxSize * 4; i++) {
+			tokens.add(jwtUtils.generateToken("user" + i));
+		}
+		for (int i = 0; i < maxSize; i++) {
+			jwtUtils.parseClaims(tokens.get(i));
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch go = new CountDownLatch(1);
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int offset = maxSize + t;
+				results.add(pool.submit(() -> {
+					go.await();
+					for (int i = offset; i < tokens.size(); i += threads) {
+						jwtUtils.parseClaims(tokens.get(i));
+					}
+					return null;
+				}));
+			}
+			go.countDown();
+			for (Future<?> result : results) {
+				result.get(10, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		// un solo hilo desaloja a la vez: nunca queda por debajo de nueve décimas partes
+		int size = (int) jwtUtils.stats().get("cacheSize");
+		assertTrue(size >= maxSize - maxSize / 10, "tamaño: " + size);
+	}
+}
@@ -0,0 +1,115 @@
+package com.example.delahuerta.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+// Esquema de las migraciones sobre H2; dos listas sobre la misma base hacen de dos instancias
+class TokenRevocationListTests {
+
+	private final JwtUtils jwtUtils = new JwtUtils(false, 0, Duration.ofMinutes(15));
+	private JdbcTemplate jdbc;
+	private TokenRevocationList revocations;
+
+	@BeforeEach
+	void database() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:revocation-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		Flyway.configure().dataSource(dataSource).load().migrate();
+		jdbc = new JdbcTemplate(dataSource);
+		revocations = list();
+	}
+
+	@Test
+	void revokedJtiIsRejectedAndOthersPass() {
+		revocations.revoke("jti-1", new Date(System.currentTimeMillis() + 60_000));
+
+		assertTrue(revocations.isRevoked(claims("ana", "jti-1", new Date())));
+		assertFalse(revocations.isRevoked(claims("ana", "jti-2", new Date())));
+		assertFalse(revocations.isRevoked(claims("ana", null, new Date())));
+		assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM revoked_token WHERE jti = 'jti-1'", Integer.class));
+	}
+
+	@Test
+	void cutoffRejectsEveryTokenIssuedUpToItsSecond() {
+		revocations.revokeAll("ana");
+		long notBefore = jdbc.queryForObject("SELECT not_before FROM user_token_cutoff WHERE username = 'ana'",
+				Timestamp.class).getTime();
+		assertEquals(0, notBefore % 1000);
+		// con tokens de 15 min el corte igual dura lo que un token de 24 h emitido antes del cambio
+		long expiresAt = jdbc.queryForObject("SELECT expires_at FROM user_token_cutoff WHERE username = 'ana'",
+				Timestamp.class).getTime();
+		assertEquals(Duration.ofHours(24).toMillis(), expiresAt - notBefore);
+
+		assertTrue(revocations.isRevoked(claims("ana", "a", new Date(notBefore - 2000))));
+		assertTrue(revocations.isRevoked(claims("ana", "b", null)));
+		// "iat" va en segundos: el corte es el segundo siguiente, así que todo el segundo del corte queda afuera
+		assertTrue(revocations.isRevoked(claims("ana", "c", new Date(notBefore - 1000))));
+		assertFalse(revocations.isRevoked(claims("ana", "d", new Date(notBefore))));
+		assertFalse(revocations.isRevoked(claims("ana", "e", new Date(notBefore + 1000))));
+		// el corte es solo de ana
+		assertFalse(revocations.isRevoked(claims("beto", "f", new Date(notBefore - 1000))));
+	}
+
+	@Test
+	void tokenIssuedEarlierInTheSameSecondIsRevoked() {
+		// un token robado emitido justo antes de que el admin fuerce el logout, casi siempre en el mismo segundo
+		long issued = System.currentTimeMillis();
+		String token = jwtUtils.generateToken("ana");
+		revocations.revokeAll("ana");
+
+		assertTrue(revocations.isRevoked(jwtUtils.parseClaims(token)));
+		assertTrue(revocations.isRevoked(claims("ana", "x", new Date(issued / 1000 * 1000))));
+	}
+
+	@Test
+	void reloadPrunesExpiredRowsAndPicksUpOtherInstances() {
+		Timestamp past = new Timestamp(System.currentTimeMillis() - 60_000);
+		Timestamp future = new Timestamp(System.currentTimeMillis() + 60_000);
+		jdbc.update("INSERT INTO revoked_token (jti, expires_at) VALUES ('vencido', ?)", past);
+		jdbc.update("INSERT INTO user_token_cutoff (username, not_before, expires_at) VALUES ('beto', ?, ?)", past, past);
+		// revocaciones hechas por otra instancia
+		TokenRevocationList other = list();
+		other.revoke("vivo", future);
+		other.revokeAll("carla");
+		assertFalse(revocations.isRevoked(claims("x", "vivo", new Date())));
+
+		revocations.refresh();
+
+		assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM revoked_token WHERE jti = 'vencido'", Integer.class));
+		assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM user_token_cutoff WHERE username = 'beto'", Integer.class));
+		assertFalse(revocations.isRevoked(claims("x", "vencido", new Date())));
+		assertFalse(revocations.isRevoked(claims("beto", "f", new Date(past.getTime() - 60_000))));
+		assertTrue(revocations.isRevoked(claims("x", "vivo", new Date())));
+		assertTrue(revocations.isRevoked(claims("carla", "g", new Date(System.currentTimeMillis() - 5_000))));
+		assertEquals(1, revocations.stats().get("revokedTokens"));
+		assertEquals(1, revocations.stats().get("userCutoffs"));
+	}
+
+	private TokenRevocationList list() {
+		TokenRevocationList list = new TokenRevocationList(jdbc, jwtUtils, true, 1000, 0.01, Duration.ofHours(24));
+		list.afterPropertiesSet();
+		return list;
+	}
+
+	private static Claims claims(String subject, String jti, Date issuedAt) {
+		Claims claims = Jwts.claims().setSubject(subject);
+		claims.setId(jti);
+		claims.setIssuedAt(issuedAt);
+		return claims;
+	}
+}
@@ -0,0 +1,90 @@
+package com.example.delahuerta.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.delahuerta.DelahuertaApplication;
+import com.example.delahuerta.model.User;
+import com.example.delahuerta.service.UserService;
+
+// La aplicación completa con un pool de 2 conexiones y sin caché de usuarios: cada renovación busca al
+// usuario mientras tiene la fila del refresh token bloqueada
+class RefreshTokenConcurrencyTests {
+
+	private static final int POOL_SIZE = 2;
+	private static final int REFRESHES = 8;
+
+	private ConfigurableApplicationContext context;
+	private final ExecutorService callers = Executors.newFixedThreadPool(REFRESHES);
+
+	@BeforeEach
+	void start() {
+		context = new SpringApplicationBuilder(DelahuertaApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:refresh-pool-" + UUID.randomUUID()
+						+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.org.springframework.security=INFO",
+				"--logging.level.org.springframework.web=INFO",
+				"--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+				"--spring.datasource.hikari.connection-timeout=1000",
+				"--delahuerta.security.user-cache.enabled=false");
+	}
+
+	@AfterEach
+	void stop() {
+		callers.shutdownNow();
+		context.close();
+	}
+
+	@Test
+	void moreConcurrentRefreshesThanConnectionsAllSucceed() throws Exception {
+		UserService users = context.getBean(UserService.class);
+		UserDetailsServiceImpl userDetails = context.getBean(UserDetailsServiceImpl.class);
+		RefreshTokenService refreshTokens = context.getBean(RefreshTokenService.class);
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < REFRESHES; i++) {
+			User user = new User();
+			user.setUsername("user" + i);
+			user.setPassword("secret");
+			user.setRole("USER");
+			users.createUser(user);
+			tokens.add(refreshTokens.issue(userDetails.loadUserByUsername("user" + i)).getRefreshToken());
+		}
+
+		CountDownLatch go = new CountDownLatch(1);
+		List<Future<RefreshTokenService.TokenPair>> results = new ArrayList<>();
+		for (String token : tokens) {
+			results.add(callers.submit(() -> {
+				go.await();
+				return refreshTokens.rotate(token);
+			}));
+		}
+		go.countDown();
+
+		for (int i = 0; i < REFRESHES; i++) {
+			RefreshTokenService.TokenPair pair = results.get(i).get(10, TimeUnit.SECONDS);
+			assertNotNull(pair);
+			assertEquals("user" + i, pair.getUser().getUsername());
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.example.delahuerta.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import com.example.delahuerta.security.jwt.JwtUtils;
+import com.example.delahuerta.security.jwt.TokenRevocationList;
+
+// Esquema de las migraciones sobre H2; TokenRevocationList real sobre la misma base
+class RefreshTokenServiceTests {
+
+	private final JwtUtils jwtUtils = new JwtUtils(false, 0, Duration.ofMinutes(15));
+	private JdbcTemplate jdbc;
+	private TokenRevocationList revocations;
+	private RefreshTokenService service;
+
+	@BeforeEach
+	void wire() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:refresh-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		Flyway.configure().dataSource(dataSource).load().migrate();
+		jdbc = new JdbcTemplate(dataSource);
+		revocations = new TokenRevocationList(jdbc, jwtUtils, true, 1000, 0.01, Duration.ofHours(24));
+		revocations.afterPropertiesSet();
+
+		UserDetailsServiceImpl users = mock(UserDetailsServiceImpl.class);
+		when(users.loadUserByUsername(anyString())).thenAnswer(invocation ->
+				new User(invocation.getArgument(0), "", List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+		service = new RefreshTokenService(jdbc, jwtUtils, revocations, users, Duration.ofDays(30));
+	}
+
+	@Test
+	void rotationSpendsTheTokenAndContinuesTheFamily() {
+		RefreshTokenService.TokenPair first = service.issue(user("ana"));
+		RefreshTokenService.TokenPair second = service.rotate(first.getRefreshToken());
+
+		assertNotNull(second);
+		assertNotEquals(first.getRefreshToken(), second.getRefreshToken());
+		assertNotEquals(jti(first), jti(second));
+		assertEquals("ana", jwtUtils.parseClaims(second.getAccessToken()).getSubject());
+		assertEquals(1, jdbc.queryForObject("SELECT COUNT(DISTINCT family_id) FROM refresh_token", Integer.class));
+		assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM refresh_token WHERE used_at IS NOT NULL", Integer.class));
+		assertFalse(revocations.isRevoked(jwtUtils.parseClaims(second.getAccessToken())));
+	}
+
+	@Test
+	void reusingASpentTokenRevokesTheWholeFamily() {
+		RefreshTokenService.TokenPair first = service.issue(user("ana"));
+		RefreshTokenService.TokenPair second = service.rotate(first.getRefreshToken());
+		RefreshTokenService.TokenPair other = service.issue(user("ana"));
+
+		assertNull(service.rotate(first.getRefreshToken()));
+
+		// el último token de la familia ya no sirve y los de acceso emitidos desde ella quedan revocados
+		assertNull(service.rotate(second.getRefreshToken()));
+		assertTrue(revocations.isRevoked(jwtUtils.parseClaims(first.getAccessToken())));
+		assertTrue(revocations.isRevoked(jwtUtils.parseClaims(second.getAccessToken())));
+		assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM revoked_token WHERE jti IN (?, ?)", Integer.class,
+				jti(first), jti(second)));
+		// otra familia del mismo usuario (otro dispositivo) no se toca
+		assertFalse(revocations.isRevoked(jwtUtils.parseClaims(other.getAccessToken())));
+		assertNotNull(service.rotate(other.getRefreshToken()));
+		assertEquals(1L, service.stats().get("reuseDetected"));
+	}
+
+	@Test
+	void expiredRevokedAndUnknownTokensAreRejected() {
+		RefreshTokenService.TokenPair expired = service.issue(user("ana"));
+		jdbc.update("UPDATE refresh_token SET expires_at = ? WHERE access_jti = ?",
+				new Timestamp(System.currentTimeMillis() - 1000), jti(expired));
+		assertNull(service.rotate(expired.getRefreshToken()));
+
+		RefreshTokenService.TokenPair loggedOut = service.issue(user("ana"));
+		service.revoke(loggedOut.getRefreshToken());
+		assertNull(service.rotate(loggedOut.getRefreshToken()));
+		assertTrue(revocations.isRevoked(jwtUtils.parseClaims(loggedOut.getAccessToken())));
+
+		assertNull(service.rotate("no-existe"));
+		assertEquals(3L, service.stats().get("rejected"));
+		assertEquals(0L, service.stats().get("reuseDetected"));
+	}
+
+	@Test
+	void revokeAllEndsEveryFamilyOfTheUserOnly() {
+		RefreshTokenService.TokenPair phone = service.issue(user("ana"));
+		RefreshTokenService.TokenPair laptop = service.issue(user("ana"));
+		RefreshTokenService.TokenPair beto = service.issue(user("beto"));
+
+		service.revokeAll("ana");
+
+		assertNull(service.rotate(phone.getRefreshToken()));
+		assertNull(service.rotate(laptop.getRefreshToken()));
+		assertNotNull(service.rotate(beto.getRefreshToken()));
+	}
+
+	private static User user(String username) {
+		return new User(username, "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+	}
+
+	private String jti(RefreshTokenService.TokenPair pair) {
+		return jwtUtils.parseClaims(pair.getAccessToken()).getId();
+	}
+}
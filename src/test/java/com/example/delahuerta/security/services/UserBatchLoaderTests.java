@@ -0,0 +1,131 @@
+package com.example.delahuerta.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.delahuerta.model.User;
+import com.example.delahuerta.repository.UserRepository;
+
+class UserBatchLoaderTests {
+
+	private static final int CALLERS = 64;
+	private static final int NAMES = 9;
+
+	private final UserRepository repository = mock(UserRepository.class);
+	private final AtomicInteger queries = new AtomicInteger();
+	// un hilo por búsqueda: todas tienen que poder quedar esperando a la vez
+	private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+	private UserBatchLoader loader;
+
+	@AfterEach
+	void stop() {
+		callers.shutdownNow();
+		if (loader != null) {
+			loader.stop();
+		}
+	}
+
+	@Test
+	void concurrentLookupsShareOneQueryPerBatch() throws Exception {
+		// la consulta no responde hasta que todas las demás búsquedas se colgaron de una en curso: así
+		// ninguna llega tarde y vuelve a consultar, sin depender de cómo se repartan los hilos
+		when(repository.findByUsername(anyString())).thenAnswer(invocation -> {
+			queries.incrementAndGet();
+			return find(List.of(invocation.<String>getArgument(0))).stream().findFirst();
+		});
+		when(repository.findByUsernameIn(anyCollection())).thenAnswer(invocation -> {
+			queries.incrementAndGet();
+			awaitJoined(CALLERS - NAMES);
+			return find(invocation.getArgument(0));
+		});
+		// el lote sale al juntar los 9 nombres distintos; la ventana larga es solo un tope
+		loader = new UserBatchLoader(repository, true, 5_000_000, NAMES, 1);
+		loader.start();
+
+		CountDownLatch go = new CountDownLatch(1);
+		List<Future<Optional<User>>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			String username = i == CALLERS - 1 ? "nobody" : "user" + (i % (NAMES - 1));
+			results.add(callers.submit(() -> {
+				go.await();
+				return loader.findByUsername(username);
+			}));
+		}
+		go.countDown();
+
+		for (int i = 0; i < results.size(); i++) {
+			Optional<User> user = results.get(i).get(10, TimeUnit.SECONDS);
+			if (i == CALLERS - 1) {
+				assertTrue(user.isEmpty());
+			} else {
+				assertEquals("user" + (i % (NAMES - 1)), user.orElseThrow().getUsername());
+			}
+		}
+		assertEquals(1, queries.get());
+		assertEquals((long) CALLERS - NAMES, loader.stats().get("joinedInFlight"));
+	}
+
+	@Test
+	void matchesBatchedUsernamesCaseInsensitivelyLikeMysql() throws Exception {
+		when(repository.findByUsername(anyString())).thenAnswer(invocation ->
+				find(List.of(invocation.<String>getArgument(0))).stream().findFirst());
+		when(repository.findByUsernameIn(anyCollection())).thenAnswer(invocation -> find(invocation.getArgument(0)));
+		// lote de 2 con ventana larga: las dos búsquedas van juntas aunque una llegue tarde
+		loader = new UserBatchLoader(repository, true, 5_000_000, 2, 1);
+		loader.start();
+
+		Future<Optional<User>> alice = callers.submit(() -> loader.findByUsername("Alice"));
+		Future<Optional<User>> bob = callers.submit(() -> loader.findByUsername("bob"));
+
+		assertEquals("alice", alice.get(10, TimeUnit.SECONDS).orElseThrow().getUsername());
+		assertEquals("bob", bob.get(10, TimeUnit.SECONDS).orElseThrow().getUsername());
+		verify(repository).findByUsernameIn(anyCollection());
+	}
+
+	// Como MySQL: "nobody" no existe y la comparación no distingue mayúsculas (se devuelve el nombre guardado)
+	private static List<User> find(Collection<?> usernames) {
+		List<User> users = new ArrayList<>();
+		for (Object username : usernames) {
+			String stored = ((String) username).toLowerCase(Locale.ROOT);
+			if (!"nobody".equals(stored)) {
+				users.add(user(stored));
+			}
+		}
+		return users;
+	}
+
+	private void awaitJoined(long expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while ((long) loader.stats().get("joinedInFlight") < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+	}
+
+	private static User user(String username) {
+		User user = new User();
+		user.setUsername(username);
+		user.setPassword("x");
+		user.setRole("USER");
+		return user;
+	}
+}
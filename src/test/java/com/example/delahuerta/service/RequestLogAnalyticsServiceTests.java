@@ -0,0 +1,104 @@
+package com.example.delahuerta.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.delahuerta.service.RequestLogAnalyticsService.Bucket;
+import com.example.delahuerta.service.RequestLogAnalyticsService.Dimension;
+
+// Las consultas HQL reales (truncate y sum(sampleWeight)) sobre el esquema de las migraciones en H2
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:analytics-${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.springframework.security=INFO",
+		"logging.level.org.springframework.web=INFO"})
+class RequestLogAnalyticsServiceTests {
+
+	private static final LocalDateTime FROM = LocalDateTime.of(2024, 5, 1, 0, 0);
+	private static final LocalDateTime TO = LocalDateTime.of(2024, 5, 3, 0, 0);
+
+	@Autowired
+	private RequestLogAnalyticsService service;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void seed() {
+		jdbc.update("DELETE FROM request_log");
+		insert("GET", "/a", LocalDateTime.of(2024, 5, 1, 10, 0, 10), 1);
+		insert("GET", "/a", LocalDateTime.of(2024, 5, 1, 10, 0, 40), 2);
+		insert("POST", "/b", LocalDateTime.of(2024, 5, 1, 10, 1, 5), 1);
+		insert("GET", "/a", LocalDateTime.of(2024, 5, 1, 11, 30, 0), 3);
+		insert("GET", "/b", LocalDateTime.of(2024, 5, 2, 9, 0, 0), 1);
+		// fuera del rango pedido
+		insert("GET", "/a", LocalDateTime.of(2024, 5, 3, 0, 0, 0), 5);
+		insert("GET", "/a", LocalDateTime.of(2024, 4, 30, 23, 59, 59), 5);
+	}
+
+	@Test
+	void minuteBuckets() {
+		assertEquals(List.of(
+				bucket(LocalDateTime.of(2024, 5, 1, 10, 0), 3, 2),
+				bucket(LocalDateTime.of(2024, 5, 1, 10, 1), 1, 1),
+				bucket(LocalDateTime.of(2024, 5, 1, 11, 30), 3, 1),
+				bucket(LocalDateTime.of(2024, 5, 2, 9, 0), 1, 1)),
+				service.countRequests(null, Bucket.MINUTE, FROM, TO, 100));
+	}
+
+	@Test
+	void hourBuckets() {
+		assertEquals(List.of(
+				bucket(LocalDateTime.of(2024, 5, 1, 10, 0), 4, 3),
+				bucket(LocalDateTime.of(2024, 5, 1, 11, 0), 3, 1),
+				bucket(LocalDateTime.of(2024, 5, 2, 9, 0), 1, 1)),
+				service.countRequests(null, Bucket.HOUR, FROM, TO, 100));
+	}
+
+	@Test
+	void dayBuckets() {
+		assertEquals(List.of(
+				bucket(LocalDateTime.of(2024, 5, 1, 0, 0), 7, 4),
+				bucket(LocalDateTime.of(2024, 5, 2, 0, 0), 1, 1)),
+				service.countRequests(null, Bucket.DAY, FROM, TO, 100));
+	}
+
+	@Test
+	void bucketsSplitByDimensionAndDimensionAloneOrderByWeight() {
+		List<Map<String, Object>> byDayAndPath = service.countRequests(Dimension.PATH, Bucket.DAY, FROM, TO, 100);
+		assertEquals(List.of(
+				Map.of("bucket", LocalDateTime.of(2024, 5, 1, 0, 0), "path", "/a", "count", 6L, "sampledRows", 3L),
+				Map.of("bucket", LocalDateTime.of(2024, 5, 1, 0, 0), "path", "/b", "count", 1L, "sampledRows", 1L),
+				Map.of("bucket", LocalDateTime.of(2024, 5, 2, 0, 0), "path", "/b", "count", 1L, "sampledRows", 1L)),
+				byDayAndPath);
+
+		assertEquals(List.of(
+				Map.of("method", "GET", "count", 7L, "sampledRows", 4L),
+				Map.of("method", "POST", "count", 1L, "sampledRows", 1L)),
+				service.countRequests(Dimension.METHOD, null, FROM, TO, 100));
+		assertEquals(1, service.countRequests(Dimension.METHOD, null, FROM, TO, 1).size());
+	}
+
+	private void insert(String method, String path, LocalDateTime timestamp, int sampleWeight) {
+		jdbc.update("INSERT INTO request_log (method, path, ip, timestamp, sample_weight) VALUES (?, ?, '10.0.0.1', ?, ?)",
+				method, path, Timestamp.valueOf(timestamp), sampleWeight);
+	}
+
+	private static Map<String, Object> bucket(LocalDateTime bucket, long count, long sampledRows) {
+		return Map.of("bucket", bucket, "count", count, "sampledRows", sampledRows);
+	}
+}
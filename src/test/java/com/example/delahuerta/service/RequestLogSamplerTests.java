@@ -0,0 +1,47 @@
+package com.example.delahuerta.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class RequestLogSamplerTests {
+
+	private final RequestLogSampler sampler = new RequestLogSampler(new String[] {
+			"OPTIONS /**=never",
+			"GET /api/user/**=tail:10",
+			"* /api/users/**=rate:4"
+	}, "always", 1000, 400);
+
+	@Test
+	void firstMatchingRuleDecides() {
+		assertEquals(0, sampler.weight("OPTIONS", "/api/user/profile", 200, 1L));
+		assertEquals(1, sampler.weight("POST", "/api/login", 200, 1L));
+		// la cola (lenta o con error) se guarda siempre y con peso 1
+		assertEquals(1, sampler.weight("GET", "/api/user/profile", 500, 1L));
+		assertEquals(1, sampler.weight("GET", "/api/user/profile", 200, 1500L));
+	}
+
+	@Test
+	void weightsExtrapolateToTheRealCount() {
+		long weighted = 0;
+		int kept = 0;
+		for (int i = 0; i < 100_000; i++) {
+			int weight = sampler.weight("DELETE", "/api/users/7", 204, 3L);
+			assertTrue(weight == 0 || weight == 4);
+			weighted += weight;
+			kept += weight > 0 ? 1 : 0;
+		}
+		assertTrue(kept > 23_000 && kept < 27_000, "guardadas: " + kept);
+		assertTrue(Math.abs(weighted - 100_000) < 4_000, "estimación: " + weighted);
+	}
+
+	@Test
+	void rejectsMalformedRules() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new RequestLogSampler(new String[] {"GET /x=sometimes"}, "always", 1000, 400));
+		assertThrows(IllegalArgumentException.class,
+				() -> new RequestLogSampler(new String[] {"GET /x=rate"}, "always", 1000, 400));
+	}
+}
@@ -0,0 +1,131 @@
+package com.example.delahuerta.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class RequestLogWriterTests {
+
+	@TempDir
+	Path directory;
+
+	private RequestLogWriter writer;
+
+	@AfterEach
+	void stop() {
+		if (writer != null) {
+			writer.stop();
+		}
+	}
+
+	@Test
+	void replayResumesAfterTheLastInsertedBatchInsteadOfStartingOver() throws Exception {
+		FailingOnce jdbc = new FailingOnce(dataSource(), 2);
+		createTable(jdbc);
+
+		Path spill = directory.resolve("request-log.spill");
+		List<String> lines = new ArrayList<>();
+		for (int i = 1; i <= 5; i++) {
+			lines.add("GET\t/api/item/" + i + "\t10.0.0.1\t2024-05-01T10:00:0" + i + "\t3\t200\t120\t1");
+		}
+		Files.write(spill, lines);
+
+		// lotes de 2: el segundo falla una vez y el siguiente ciclo ocioso debe seguir desde la línea 3
+		writer = new RequestLogWriter(jdbc, 100, 2, 20, RequestLogWriter.OverflowPolicy.SPILL, 0, false, 1000,
+				spill.toString());
+		writer.start();
+
+		Path replay = awaitReplay(spill);
+
+		assertFalse(Files.exists(replay));
+		assertFalse(Files.exists(directory.resolve("request-log.spill.replay.offset")));
+		assertEquals(1, jdbc.failures.get());
+		assertEquals(5, jdbc.queryForObject("SELECT COUNT(*) FROM request_log", Integer.class));
+		assertEquals(5, jdbc.queryForObject("SELECT COUNT(DISTINCT path) FROM request_log", Integer.class));
+	}
+
+	@Test
+	void corruptLinesAreSkippedAndCountedWithoutBlockingTheReplay() throws Exception {
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource());
+		createTable(jdbc);
+
+		Path spill = directory.resolve("request-log.spill");
+		Files.write(spill, List.of(
+				"GET\t/api/item/1\t10.0.0.1\t2024-05-01T10:00:01\t3\t200\t120\t1",
+				"GET\t/api/item/2\t10.0.0.1\tno-es-fecha\t3\t200\t120\t1",
+				"GET\t/api/item/3\t10.0.0.1\t2024-05-01T10:00:03\t3\tdoscientos\t120\t1",
+				"GET\t/api/item/4\t10.0.0.1\t2024-05-01T10:00:04\t3\t200\t120\t1",
+				// la última línea quedó a medio escribir
+				"GET\t/api/item/5\t10.0.0.1\t2024-05-01T10:0"));
+
+		writer = new RequestLogWriter(jdbc, 100, 2, 20, RequestLogWriter.OverflowPolicy.SPILL, 0, false, 1000,
+				spill.toString());
+		writer.start();
+
+		assertFalse(Files.exists(awaitReplay(spill)));
+		assertEquals(3L, writer.stats().get("corruptSpillLines"));
+		assertEquals(List.of("/api/item/1", "/api/item/4"),
+				jdbc.queryForList("SELECT path FROM request_log ORDER BY path", String.class));
+
+		// un derrame posterior ya no queda detrás de las líneas rotas
+		Files.write(spill, List.of("GET\t/api/item/6\t10.0.0.1\t2024-05-01T10:00:06\t3\t200\t120\t1"));
+		awaitReplay(spill);
+		assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM request_log", Integer.class));
+	}
+
+	private static DriverManagerDataSource dataSource() {
+		return new DriverManagerDataSource(
+				"jdbc:h2:mem:request-log-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+	}
+
+	private static void createTable(JdbcTemplate jdbc) {
+		jdbc.execute("CREATE TABLE request_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, method VARCHAR(10),"
+				+ " path VARCHAR(255), ip VARCHAR(45), timestamp TIMESTAMP, duration_ms BIGINT, status INT,"
+				+ " response_bytes BIGINT, sample_weight INT DEFAULT 1 NOT NULL)");
+	}
+
+	private Path awaitReplay(Path spill) throws InterruptedException {
+		Path replay = directory.resolve("request-log.spill.replay");
+		long deadline = System.currentTimeMillis() + 5_000;
+		while ((Files.exists(spill) || Files.exists(replay)) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		return replay;
+	}
+
+	private static final class FailingOnce extends JdbcTemplate {
+		private final int failingCall;
+		private final AtomicInteger calls = new AtomicInteger();
+		private final AtomicInteger failures = new AtomicInteger();
+
+		private FailingOnce(DriverManagerDataSource dataSource, int failingCall) {
+			super(dataSource);
+			this.failingCall = failingCall;
+		}
+
+		@Override
+		public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+				ParameterizedPreparedStatementSetter<T> pss) {
+			if (calls.incrementAndGet() == failingCall) {
+				failures.incrementAndGet();
+				throw new TransientDataAccessResourceException("base de datos caída");
+			}
+			return super.batchUpdate(sql, batchArgs, batchSize, pss);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.delahuerta.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import com.example.delahuerta.DelahuertaApplication;
+import com.example.delahuerta.security.services.UserDetailsCache;
+
+// Dos instancias completas de la aplicación sobre la misma base H2 en memoria, como dos nodos detrás
+// del balanceador
+class UserChangePropagationTests {
+
+	private ConfigurableApplicationContext nodeA;
+	private ConfigurableApplicationContext nodeB;
+
+	@BeforeEach
+	void startNodes() {
+		String url = "jdbc:h2:mem:user-change-" + UUID.randomUUID()
+				+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+		nodeA = start(url);
+		nodeB = start(url);
+	}
+
+	@AfterEach
+	void stopNodes() {
+		nodeB.close();
+		nodeA.close();
+	}
+
+	@Test
+	void userCreatedOnOneNodeIsEvictedFromTheOtherNodesCache() throws Exception {
+		UserDetailsCache cacheB = nodeB.getBean(UserDetailsCache.class);
+		cacheB.put(new User("alice", "stale", List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+		assertNotNull(cacheB.get("alice"));
+		String etagBefore = nodeB.getBean(UserListVersion.class).etag();
+
+		com.example.delahuerta.model.User alice = new com.example.delahuerta.model.User();
+		alice.setUsername("alice");
+		alice.setPassword("secret");
+		alice.setRole("ADMIN");
+		nodeA.getBean(UserService.class).createUser(alice);
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (cacheB.get("alice") != null && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		assertNull(cacheB.get("alice"));
+		assertNotEquals(etagBefore, nodeB.getBean(UserListVersion.class).etag());
+		assertEquals(1, nodeB.getBean(JdbcTemplate.class)
+				.queryForObject("SELECT COUNT(*) FROM user_change WHERE username = 'alice'", Integer.class));
+	}
+
+	private static ConfigurableApplicationContext start(String url) {
+		return new SpringApplicationBuilder(DelahuertaApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=" + url,
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.org.springframework.security=INFO",
+				"--logging.level.org.springframework.web=INFO",
+				"--delahuerta.users.change-feed.poll-interval-ms=100");
+	}
+}
@@ -0,0 +1,140 @@
+package com.example.delahuerta.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class UserImportServiceTests {
+
+	private final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+			"jdbc:h2:mem:user-import-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+	private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+	@BeforeEach
+	void createTable() {
+		jdbc.execute("CREATE TABLE `user` (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(255) NOT NULL,"
+				+ " password VARCHAR(255) NOT NULL, role VARCHAR(255) NOT NULL, CONSTRAINT uk_user_username UNIQUE (username))");
+	}
+
+	@Test
+	void rowsOfAFailedBatchAreReportedByWhatReallyHappened() throws Exception {
+
+		// mientras se hashea "carla", otra petición la da de alta: el lote choca con ella a mitad de camino
+		PasswordEncoder encoder = new PasswordEncoder() {
+			@Override
+			public String encode(CharSequence rawPassword) {
+				if ("carla-pw".contentEquals(rawPassword)) {
+					jdbc.update("INSERT INTO `user` (username, password, role) VALUES ('carla', 'x', 'USER')");
+				}
+				return "hash:" + rawPassword;
+			}
+
+			@Override
+			public boolean matches(CharSequence rawPassword, String encodedPassword) {
+				return encodedPassword.equals(encode(rawPassword));
+			}
+		};
+		List<UserChangedEvent> events = new ArrayList<>();
+		UserImportService service = new UserImportService(new NamedParameterJdbcTemplate(jdbc), encoder,
+				event -> events.add((UserChangedEvent) event), new ObjectMapper(),
+				new DataSourceTransactionManager(dataSource), 10, 1);
+		try {
+			String csv = "username,password\nana,ana-pw\nbeto,beto-pw\ncarla,carla-pw\ndario,dario-pw\n";
+			UserImportService.Result result = service.importUsers(
+					new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), UserImportService.Format.CSV);
+
+			assertEquals(3, result.getInserted());
+			assertEquals(1, result.getFailed());
+			assertEquals("carla", result.getFailures().get(0).getUsername());
+			assertEquals("El usuario ya existe", result.getFailures().get(0).getError());
+			assertEquals(1, events.size());
+			assertEquals(List.of("ana", "beto", "dario"), events.get(0).getUsernames());
+			assertEquals(4, jdbc.queryForObject("SELECT COUNT(*) FROM `user`", Integer.class));
+			assertEquals("hash:beto-pw", jdbc.queryForObject("SELECT password FROM `user` WHERE username = 'beto'", String.class));
+		} finally {
+			service.destroy();
+		}
+	}
+
+	@Test
+	void duplicatesAreCaughtWithinAChunkAndAcrossChunks() throws Exception {
+		UserImportService service = service(2);
+		try {
+			// bloques: [ana, beto] [carla, (carla), dario] [ana]
+			UserImportService.Result result = importCsv(service,
+					"ana,pw\nbeto,pw\ncarla,pw\ncarla,pw\ndario,pw\nana,pw\n");
+
+			assertEquals(4, result.getInserted());
+			assertEquals(List.of("4:Usuario repetido en el archivo", "6:El usuario ya existe"), failures(result));
+			assertEquals(4, jdbc.queryForObject("SELECT COUNT(*) FROM `user`", Integer.class));
+		} finally {
+			service.destroy();
+		}
+	}
+
+	@Test
+	void quotedCsvFieldsMayHoldCommasAndQuotes() throws Exception {
+		UserImportService service = service(10);
+		try {
+			UserImportService.Result result = importCsv(service, "username,password,role\n"
+					+ "\"eva\",\"pw,con,comas\",ADMIN\n"
+					+ "\"fer\"\"nando\",\"\"\"entre comillas\"\"\"\n"
+					+ "gus,pw\"suelta\n"
+					+ "\"sin cerrar,pw\n"
+					+ "hugo,\"pw\"x\n");
+
+			assertEquals(3, result.getInserted());
+			assertEquals("hash:pw,con,comas", password("eva"));
+			assertEquals("ADMIN", jdbc.queryForObject("SELECT role FROM `user` WHERE username = 'eva'", String.class));
+			assertEquals("hash:\"entre comillas\"", password("fer\"nando"));
+			assertEquals("hash:pw\"suelta", password("gus"));
+			String invalid = "CSV inválido: comillas sin cerrar o texto después de la comilla de cierre";
+			assertEquals(List.of("5:" + invalid, "6:" + invalid), failures(result));
+		} finally {
+			service.destroy();
+		}
+	}
+
+	private UserImportService service(int batchSize) {
+		PasswordEncoder encoder = new PasswordEncoder() {
+			@Override
+			public String encode(CharSequence rawPassword) {
+				return "hash:" + rawPassword;
+			}
+
+			@Override
+			public boolean matches(CharSequence rawPassword, String encodedPassword) {
+				return encodedPassword.equals(encode(rawPassword));
+			}
+		};
+		return new UserImportService(new NamedParameterJdbcTemplate(jdbc), encoder, event -> { },
+				new ObjectMapper(), new DataSourceTransactionManager(dataSource), batchSize, 1);
+	}
+
+	private static UserImportService.Result importCsv(UserImportService service, String csv) throws Exception {
+		return service.importUsers(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+				UserImportService.Format.CSV);
+	}
+
+	private static List<String> failures(UserImportService.Result result) {
+		return result.getFailures().stream().map(failure -> failure.getLine() + ":" + failure.getError()).toList();
+	}
+
+	private String password(String username) {
+		return jdbc.queryForObject("SELECT password FROM `user` WHERE username = ?", String.class, username);
+	}
+}
@@ -0,0 +1,59 @@
+package db.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+// Una base como la dejaba ddl-auto=update con las entidades originales, migrada con la misma
+// configuración de Flyway que la aplicación (baseline en la versión 1)
+class PreFlywaySchemaRepairTests {
+
+	@Test
+	void legacyDatabaseGetsWhatV1WouldHaveCreated() throws Exception {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:legacy-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("CREATE TABLE `user` (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(255) NOT NULL,"
+				+ " password VARCHAR(255) NOT NULL, role VARCHAR(255) NOT NULL)");
+		jdbc.execute("CREATE TABLE request_log (id BIGINT NOT NULL PRIMARY KEY, method VARCHAR(255),"
+				+ " path VARCHAR(255), ip VARCHAR(255), `timestamp` DATETIME(6))");
+		jdbc.execute("CREATE TABLE request_log_seq (next_val BIGINT)");
+		jdbc.update("INSERT INTO request_log (id, method, path, ip, `timestamp`) VALUES (1, 'GET', '/api/users', '10.0.0.1', NOW())");
+		jdbc.update("INSERT INTO request_log (id, method, path, ip, `timestamp`) VALUES (51, 'GET', '/api/users', '10.0.0.1', NOW())");
+		jdbc.update("INSERT INTO `user` (username, password, role) VALUES ('ana', 'x', 'USER')");
+
+		Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+		// el INSERT de RequestLogWriter, sin id
+		jdbc.update("INSERT INTO request_log (method, path, ip, `timestamp`, duration_ms, status, response_bytes, sample_weight)"
+				+ " VALUES ('GET', '/api/users', '10.0.0.2', NOW(), 3, 200, 120, 1)");
+		assertEquals(52L, jdbc.queryForObject("SELECT MAX(id) FROM request_log", Long.class));
+
+		Set<String> indexes = new HashSet<>();
+		try (Connection connection = dataSource.getConnection();
+				ResultSet rs = connection.getMetaData().getIndexInfo(null, null, "request_log", false, false)) {
+			while (rs.next()) {
+				indexes.add(rs.getString("INDEX_NAME").toLowerCase());
+			}
+		}
+		assertTrue(indexes.containsAll(Set.of("idx_request_log_timestamp", "idx_request_log_method_timestamp",
+				"idx_request_log_path_timestamp", "idx_request_log_ip_timestamp")), indexes.toString());
+
+		assertThrows(DuplicateKeyException.class,
+				() -> jdbc.update("INSERT INTO `user` (username, password, role) VALUES ('ana', 'y', 'USER')"));
+		// V3 sembró el admin sobre la base existente
+		assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM `user` WHERE username = 'admin'", Integer.class));
+	}
+}